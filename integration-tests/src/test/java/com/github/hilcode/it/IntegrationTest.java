@@ -159,10 +159,23 @@ public abstract class IntegrationTest
 		final File testDir = new File(testDir_, "original");
 		final File sourceDir = new File(SOURCE_DIR, testDir.getPath());
 		final File targetDir = new File(TARGET_DIR, testDir_);
+		copyTree(sourceDir, targetDir);
+		return targetDir;
+	}
+
+	public static final void copyTree(final File sourceDir, final File targetDir)
+	{
 		fileTreeTraverser()
 				.breadthFirstTraversal(sourceDir)
 				.forEach(new FileCopier(sourceDir, targetDir));
-		return targetDir;
+	}
+
+	public static final void deleteTree(final File dir)
+	{
+		for (final File file : fileTreeTraverser().postOrderTraversal(dir))
+		{
+			file.delete();
+		}
 	}
 
 	public static final void compareTree(final IntegrationTest test)
@@ -0,0 +1,184 @@
+/*
+ * Copyright (C) 2016 H.C. Wijbenga
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.hilcode.versionator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import org.junit.Test;
+import com.github.hilcode.it.IntegrationTest;
+import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Sets;
+import com.google.common.io.Files;
+
+public final class ListExecutorTest
+{
+	private static final ImmutableList<String> PATTERNS = ImmutableList.of("*:*:*", "!PLUGIN_*");
+
+	private static final File ROOT_DIR = new File(IntegrationTest.SOURCE_DIR, "test-0013/original");
+
+	private static String list(
+			final File rootDir,
+			final Command.Verbosity verbosity,
+			final Command.Grouping grouping,
+			final Command.Format format) throws IOException
+	{
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		final Command.List list = new Command.List(rootDir, PATTERNS, verbosity, grouping, format);
+		new ListExecutor(new DefaultPomFinder(new DefaultPomParser()), list, new PrintStream(bytes, false, "UTF-8")).execute();
+		return bytes.toString("UTF-8");
+	}
+
+	private static ImmutableList<String> lines(final Command.Format format) throws IOException
+	{
+		final String text = list(ROOT_DIR, Command.Verbosity.NORMAL, Command.Grouping.BY_GAV, format);
+		return ImmutableList.copyOf(text.split(System.lineSeparator()));
+	}
+
+	private static String text(final String... lines)
+	{
+		return Joiner.on(System.lineSeparator()).join(lines) + System.lineSeparator();
+	}
+
+	@Test
+	public void listing_by_gav_should_print_each_gav_once() throws IOException
+	{
+		assertEquals(
+				text(
+						"1) GROUP:ARTIFACT:2.3",
+						"2) GROUP:ARTIFACT:2.4",
+						"3) GROUP:ARTIFACT:2.5",
+						"4) GROUP:ARTIFACT:2.6",
+						"5) com.github.hilcode.its:versionator-it:4.3.1",
+						"6) com.github.hilcode.its:versionator-it-grandparent:2",
+						"7) com.github.hilcode.its:versionator-it-library:1.1-SNAPSHOT",
+						"8) com.github.hilcode.its:versionator-it-parent:2"),
+				list(ROOT_DIR, Command.Verbosity.NORMAL, Command.Grouping.BY_GAV, Command.Format.TEXT));
+	}
+
+	@Test
+	public void listing_verbosely_should_print_the_poms_using_each_group_artifact() throws IOException
+	{
+		assertEquals(
+				text(
+						"1) GROUP:ARTIFACT",
+						"    1) com.github.hilcode.its:versionator-it-library   library/pom.xml",
+						"",
+						"2) com.github.hilcode.its:versionator-it",
+						"    1) com.github.hilcode.its:versionator-it-project   project/pom.xml",
+						"",
+						"3) com.github.hilcode.its:versionator-it-grandparent",
+						"    1) com.github.hilcode.its:versionator-it-parent    poms/parent.xml",
+						"",
+						"4) com.github.hilcode.its:versionator-it-library",
+						"    1) com.github.hilcode.its:versionator-it-project   project/pom.xml",
+						"",
+						"5) com.github.hilcode.its:versionator-it-parent",
+						"    1) com.github.hilcode.its:versionator-it           pom.xml"),
+				list(ROOT_DIR, Command.Verbosity.VERBOSE, Command.Grouping.BY_GAV, Command.Format.TEXT));
+	}
+
+	@Test
+	public void listing_by_pom_should_print_the_gavs_each_pom_uses() throws IOException
+	{
+		final String expected = text(
+				"1) com.github.hilcode.its:versionator-it:4.3.1 (pom.xml)",
+				"    1) com.github.hilcode.its:versionator-it-parent:2",
+				"",
+				"2) com.github.hilcode.its:versionator-it-library:1.1-SNAPSHOT (library/pom.xml)",
+				"    1) GROUP:ARTIFACT:2.3",
+				"    2) GROUP:ARTIFACT:2.4",
+				"    3) GROUP:ARTIFACT:2.5",
+				"    4) GROUP:ARTIFACT:2.6",
+				"",
+				"3) com.github.hilcode.its:versionator-it-parent:2 (poms/parent.xml)",
+				"    1) com.github.hilcode.its:versionator-it-grandparent:2",
+				"",
+				"4) com.github.hilcode.its:versionator-it-project:5.1 (project/pom.xml)",
+				"    1) com.github.hilcode.its:versionator-it:4.3.1",
+				"    2) com.github.hilcode.its:versionator-it-library:1.1-SNAPSHOT");
+		assertEquals(expected, list(ROOT_DIR, Command.Verbosity.NORMAL, Command.Grouping.BY_POM, Command.Format.TEXT));
+		assertEquals(expected, list(ROOT_DIR, Command.Verbosity.VERBOSE, Command.Grouping.BY_POM, Command.Format.TEXT));
+	}
+
+	@Test
+	public void json_lines_should_list_the_same_gavs_as_text() throws IOException
+	{
+		final Set<String> textGavs = Sets.newHashSet();
+		for (final String line : lines(Command.Format.TEXT))
+		{
+			textGavs.add(line.substring(line.indexOf(") ") + 2));
+		}
+		final Set<String> jsonGavs = Sets.newHashSet();
+		for (final String line : lines(Command.Format.JSONL))
+		{
+			assertTrue(line, line.startsWith("{\"pom\":\"") && line.endsWith("\"}"));
+			jsonGavs.add(
+					field(line, "groupId") + ":" + field(line, "artifactId") + ":" + field(line, "version"));
+		}
+		assertTrue(textGavs.size() > 1);
+		assertEquals(textGavs, jsonGavs);
+	}
+
+	@Test
+	public void json_lines_should_escape_quotes_backslashes_and_control_characters() throws IOException
+	{
+		final File rootDir = new File(IntegrationTest.TARGET_DIR, "list-json-escaping");
+		final String moduleName = "a\"b\\c\td";
+		writePom(
+				new File(rootDir, "pom.xml"),
+				"<groupId>its</groupId><artifactId>root</artifactId><version>1.0</version><packaging>pom</packaging>" +
+						"<modules><module>" + moduleName + "</module></modules>");
+		writePom(
+				new File(new File(rootDir, moduleName), "pom.xml"),
+				"<parent><groupId>its</groupId><artifactId>root</artifactId><version>1.0</version></parent>" +
+						"<artifactId>module</artifactId>" +
+						"<dependencies><dependency>" +
+						"<groupId>junit</groupId><artifactId>junit</artifactId><version>4.12</version>" +
+						"</dependency></dependencies>");
+		assertEquals(
+				text(
+						"{\"pom\":\"its:module:1.0\",\"file\":\"a\\\"b\\\\c\\u0009d/pom.xml\"," +
+								"\"groupId\":\"its\",\"artifactId\":\"root\",\"version\":\"1.0\"}",
+						"{\"pom\":\"its:module:1.0\",\"file\":\"a\\\"b\\\\c\\u0009d/pom.xml\"," +
+								"\"groupId\":\"junit\",\"artifactId\":\"junit\",\"version\":\"4.12\"}"),
+				list(rootDir, Command.Verbosity.NORMAL, Command.Grouping.BY_GAV, Command.Format.JSONL));
+	}
+
+	private static void writePom(final File file, final String content) throws IOException
+	{
+		Files.createParentDirs(file);
+		Files.write(
+				"<?xml version=\"1.0\" encoding=\"UTF-8\"?><project><modelVersion>4.0.0</modelVersion>" +
+						content +
+						"</project>",
+				file,
+				StandardCharsets.UTF_8);
+	}
+
+	private static String field(final String line, final String name)
+	{
+		final String prefix = "\"" + name + "\":\"";
+		final int start = line.indexOf(prefix) + prefix.length();
+		return line.substring(start, line.indexOf('"', start));
+	}
+}
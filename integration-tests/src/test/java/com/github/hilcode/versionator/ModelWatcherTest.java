@@ -0,0 +1,170 @@
+/*
+ * Copyright (C) 2016 H.C. Wijbenga
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.hilcode.versionator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+import com.github.hilcode.it.IntegrationTest;
+import com.google.common.base.Function;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.Files;
+
+public final class ModelWatcherTest
+{
+	public static final void replace(final File file, final String oldText, final String newText) throws IOException
+	{
+		final String text = Files.toString(file, StandardCharsets.UTF_8);
+		Files.write(text.replace(oldText, newText), file, StandardCharsets.UTF_8);
+	}
+
+	@Test
+	public void only_changed_poms_and_their_descendants_should_be_rebuilt() throws IOException
+	{
+		final File rootDir = new File(IntegrationTest.TARGET_DIR, "model-watcher");
+		IntegrationTest.deleteTree(rootDir);
+		IntegrationTest.copyTree(new File(IntegrationTest.SOURCE_DIR, "test-0013/original"), rootDir);
+		final PomFinder pomFinder = new DefaultPomFinder(new DefaultPomParser());
+		final Function<PomReader, PomFinder> pomFinderFactory = new Function<PomReader, PomFinder>()
+		{
+			@Override
+			public PomFinder apply(final PomReader pomReader)
+			{
+				return new DefaultPomFinder(pomReader);
+			}
+		};
+		try (final ModelWatcher modelWatcher = new ModelWatcher(
+				new DefaultPomReader(Main.POM_PARSER_SUPPLIER),
+				pomFinderFactory,
+				rootDir))
+		{
+			assertEquals(pomFinder.findAllPoms(rootDir), modelWatcher.getModel().poms);
+			final File libraryPomFile = new File(rootDir, "library/pom.xml").getCanonicalFile();
+			replace(libraryPomFile, "<version>2.4</version>", "<version>2.9</version>");
+			final ImmutableList<Pom> rebuiltLibraryPoms = modelWatcher.update(ImmutableList.of(libraryPomFile));
+			assertEquals(1, rebuiltLibraryPoms.size());
+			assertEquals(pomFinder.findAllPoms(rootDir), modelWatcher.getModel().poms);
+			final File rootPomFile = new File(rootDir, "pom.xml").getCanonicalFile();
+			replace(rootPomFile, "<version>4.3.1</version>", "<version>4.3.2</version>");
+			final ImmutableList<Pom> rebuiltRootPoms = modelWatcher.update(ImmutableList.of(rootPomFile));
+			assertEquals(2, rebuiltRootPoms.size());
+			assertEquals(pomFinder.findAllPoms(rootDir), modelWatcher.getModel().poms);
+		}
+	}
+
+	@Test
+	public void watching_should_keep_the_poms_only_the_finder_knows_and_pick_up_new_ones() throws Exception
+	{
+		final File rootDir = new File(IntegrationTest.TARGET_DIR, "model-watcher-walk");
+		IntegrationTest.deleteTree(rootDir);
+		IntegrationTest.copyTree(new File(IntegrationTest.SOURCE_DIR, "test-0013/original"), rootDir);
+		writePom(new File(rootDir, "extra/pom.xml"), "versionator-it-extra");
+		final Function<PomReader, PomFinder> pomFinderFactory = new Function<PomReader, PomFinder>()
+		{
+			@Override
+			public PomFinder apply(final PomReader pomReader)
+			{
+				return new WalkingPomFinder(pomReader, 2, WalkingPomFinder.DEFAULT_PRUNE_GLOBS);
+			}
+		};
+		final PomFinder pomFinder = pomFinderFactory.apply(new DefaultPomReader(Main.POM_PARSER_SUPPLIER));
+		final BlockingQueue<Model> models = new LinkedBlockingQueue<>();
+		try (final ModelWatcher modelWatcher = new ModelWatcher(
+				new DefaultPomReader(Main.POM_PARSER_SUPPLIER),
+				pomFinderFactory,
+				rootDir))
+		{
+			assertEquals(6, modelWatcher.getModel().poms.size());
+			assertEquals(pomFinder.findAllPoms(rootDir), modelWatcher.getModel().poms);
+			final Thread watcherThread = new Thread(new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					modelWatcher.run(new ModelWatcher.Listener()
+					{
+						@Override
+						public void modelUpdated(final Model model, final ImmutableList<Pom> rebuiltPoms)
+						{
+							models.add(model);
+						}
+
+						@Override
+						public void updateFailed(final RuntimeException exception)
+						{
+							// A POM may be read while it is being written; the next event fixes that.
+						}
+					});
+				}
+			});
+			watcherThread.start();
+			try
+			{
+				replace(new File(rootDir, "library/pom.xml"), "<version>2.4</version>", "<version>2.9</version>");
+				awaitPoms(models, pomFinder.findAllPoms(rootDir));
+				writePom(new File(rootDir, "another/pom.xml"), "versionator-it-another");
+				final ImmutableList<Pom> expectedPoms = pomFinder.findAllPoms(rootDir);
+				assertEquals(7, expectedPoms.size());
+				awaitPoms(models, expectedPoms);
+			}
+			finally
+			{
+				watcherThread.interrupt();
+				watcherThread.join();
+			}
+		}
+	}
+
+	private static void writePom(final File pomFile, final String artifactId) throws IOException
+	{
+		Files.createParentDirs(pomFile);
+		Files.write(
+				"<project>\n" +
+						"\t<modelVersion>4.0.0</modelVersion>\n" +
+						"\t<groupId>com.github.hilcode.its</groupId>\n" +
+						"\t<artifactId>" + artifactId + "</artifactId>\n" +
+						"\t<version>1.0</version>\n" +
+						"</project>\n",
+				pomFile,
+				StandardCharsets.UTF_8);
+	}
+
+	private static void awaitPoms(final BlockingQueue<Model> models, final ImmutableList<Pom> expectedPoms)
+			throws InterruptedException
+	{
+		final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(20);
+		ImmutableList<Pom> lastPoms = null;
+		while (System.nanoTime() < deadline)
+		{
+			final Model model = models.poll(100, TimeUnit.MILLISECONDS);
+			if (model != null)
+			{
+				lastPoms = ImmutableList.copyOf(model.poms);
+				if (lastPoms.equals(expectedPoms))
+				{
+					return;
+				}
+			}
+		}
+		fail("Expected " + expectedPoms + " but the last model had " + lastPoms + ".");
+	}
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2016 H.C. Wijbenga
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.hilcode.versionator;
+
+import static com.google.common.io.Files.fileTreeTraverser;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import java.io.File;
+import org.junit.Test;
+import com.github.hilcode.it.IntegrationTest;
+import com.google.common.collect.ImmutableList;
+
+public final class ModelWriterTest
+{
+	private static final File SOURCE_DIR = new File(IntegrationTest.SOURCE_DIR, "test-0003");
+
+	private static final Gav GAV = Gav.BUILDER.build("com.github.hilcode.its:versionator-it-grandparent:11-SNAPSHOT");
+
+	@Test
+	public void the_parallel_writer_should_write_the_same_poms() throws Exception
+	{
+		final File rootDir = new File(IntegrationTest.TARGET_DIR, "model-writer");
+		IntegrationTest.copyTree(new File(SOURCE_DIR, "original"), rootDir);
+		Main.main(new String[]
+		{
+			"--write-threads", "4", "set-version", "-d", rootDir.getPath(), GAV.toText()
+		});
+		final File resultDir = new File(SOURCE_DIR, "result");
+		fileTreeTraverser()
+				.breadthFirstTraversal(resultDir)
+				.forEach(new IntegrationTest.FileComparator(resultDir, rootDir));
+	}
+
+	@Test
+	public void all_failures_should_be_reported_together() throws Exception
+	{
+		final File rootDir = new File(IntegrationTest.TARGET_DIR, "model-writer-failures");
+		IntegrationTest.copyTree(new File(SOURCE_DIR, "original"), rootDir);
+		final Model model = Model.BUILDER.build(new DefaultPomFinder(new DefaultPomParser()).findAllPoms(rootDir));
+		final Model result = model.apply(ImmutableList.of(GAV));
+		assertTrue(new File(rootDir, "grandparent.xml").delete());
+		assertTrue(new File(rootDir, "parent.xml").delete());
+		try
+		{
+			new ModelWriter(
+					new VersionSetter(),
+					new PropertySetter(),
+					new PomDocuments(),
+					4,
+					WriteJournal.toJournalFile(rootDir)).write(model, result);
+			fail();
+		}
+		catch (final IllegalStateException e)
+		{
+			assertTrue(e.getMessage(), e.getMessage().startsWith("Unable to write 2 POM(s), no POM was changed:"));
+			assertEquals(2, e.getSuppressed().length);
+		}
+		final File originalDir = new File(SOURCE_DIR, "original");
+		new IntegrationTest.FileComparator(originalDir, rootDir).accept(new File(originalDir, "pom.xml"));
+		assertEquals(ImmutableList.of("pom.xml"), ImmutableList.copyOf(rootDir.list()));
+	}
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright (C) 2016 H.C. Wijbenga
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.hilcode.versionator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import org.junit.Test;
+import com.github.hilcode.it.IntegrationTest;
+import com.google.common.base.Function;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.Files;
+
+/**
+ * Checks that every {@code PomFinder} finds exactly what {@code DefaultPomFinder} finds.
+ */
+public final class PomFindersTest
+{
+	public static final ImmutableList<File> findRootDirs()
+	{
+		final ImmutableList.Builder<File> rootDirsBuilder = ImmutableList.builder();
+		for (final File testDir : IntegrationTest.SOURCE_DIR.listFiles())
+		{
+			rootDirsBuilder.add(new File(testDir, "original"));
+			rootDirsBuilder.add(new File(testDir, "result"));
+		}
+		return rootDirsBuilder.build();
+	}
+
+	public static final void assertSamePoms(final PomFinder pomFinder)
+	{
+		assertSamePoms(pomFinder, findRootDirs());
+	}
+
+	public static final void assertSamePoms(final PomFinder pomFinder, final ImmutableList<File> rootDirs)
+	{
+		final PomFinder defaultPomFinder = new DefaultPomFinder(new DefaultPomParser());
+		for (final File rootDir : rootDirs)
+		{
+			assertEquals(rootDir.getPath(), defaultPomFinder.findAllPoms(rootDir), pomFinder.findAllPoms(rootDir));
+		}
+	}
+
+	/**
+	 * Creates a root POM with a module {@code x/b} whose parent is the root POM, but which has no
+	 * {@code <relativePath>}, so its default parent file is {@code x/pom.xml}. That file holds the given POM, if any.
+	 */
+	public static final File createModuleWithMisleadingParentFile(final String name, final String parentFileContent)
+			throws IOException
+	{
+		final File rootDir = new File(IntegrationTest.TARGET_DIR, name);
+		IntegrationTest.deleteTree(rootDir);
+		writePom(
+				new File(rootDir, "pom.xml"),
+				"<groupId>its</groupId><artifactId>root</artifactId><version>1.0</version><packaging>pom</packaging>" +
+						"<modules><module>x/b</module></modules>");
+		writePom(
+				new File(rootDir, "x/b/pom.xml"),
+				"<parent><groupId>its</groupId><artifactId>root</artifactId><version>1.0</version></parent>" +
+						"<artifactId>b</artifactId>");
+		if (parentFileContent != null)
+		{
+			writePom(new File(rootDir, "x/pom.xml"), parentFileContent);
+		}
+		return rootDir;
+	}
+
+	private static final void writePom(final File file, final String content) throws IOException
+	{
+		Files.createParentDirs(file);
+		Files.write(
+				"<?xml version=\"1.0\" encoding=\"UTF-8\"?><project><modelVersion>4.0.0</modelVersion>" +
+						content +
+						"</project>",
+				file,
+				StandardCharsets.UTF_8);
+	}
+
+	public static final ImmutableList<File> createModulesWithMisleadingParentFiles() throws IOException
+	{
+		return ImmutableList.of(
+				createModuleWithMisleadingParentFile("missing-parent-file", null),
+				createModuleWithMisleadingParentFile(
+						"unrelated-parent-file",
+						"<groupId>its</groupId><artifactId>unrelated</artifactId><version>1.0</version>"));
+	}
+
+	@Test
+	public void the_parallel_finder_should_find_the_same_poms() throws IOException
+	{
+		final PomFinder pomFinder = new ParallelPomFinder(new DefaultPomReader(Main.POM_PARSER_SUPPLIER), 4);
+		assertSamePoms(pomFinder);
+		assertSamePoms(pomFinder, createModulesWithMisleadingParentFiles());
+	}
+
+	@Test
+	public void the_async_finder_should_find_the_same_poms() throws IOException
+	{
+		final PomFinder pomFinder = new AsyncPomFinder(new DefaultPomReader(Main.POM_PARSER_SUPPLIER), 2);
+		assertSamePoms(pomFinder);
+		assertSamePoms(pomFinder, createModulesWithMisleadingParentFiles());
+	}
+
+	@Test
+	public void the_walking_finder_should_find_the_same_poms()
+	{
+		assertSamePoms(new WalkingPomFinder(
+				new DefaultPomReader(Main.POM_PARSER_SUPPLIER),
+				4,
+				WalkingPomFinder.DEFAULT_PRUNE_GLOBS));
+	}
+
+	@Test
+	public void a_walk_should_fail_on_poms_with_the_same_group_artifact() throws IOException
+	{
+		final File rootDir = new File(IntegrationTest.TARGET_DIR, "duplicate-group-artifact");
+		IntegrationTest.deleteTree(rootDir);
+		final String pom = "<groupId>its</groupId><artifactId>root</artifactId><version>1.0</version>";
+		writePom(new File(rootDir, "pom.xml"), pom);
+		writePom(new File(rootDir, "src/test/resources/pom.xml"), pom);
+		final PomReader pomReader = new DefaultPomReader(Main.POM_PARSER_SUPPLIER);
+		try
+		{
+			new WalkingPomFinder(pomReader, 4, WalkingPomFinder.DEFAULT_PRUNE_GLOBS).findAllPoms(rootDir);
+			fail("Expected an IllegalStateException.");
+		}
+		catch (final IllegalStateException e)
+		{
+			assertEquals(
+					String.format(
+							"Duplicate 'its:root' in '%s' and '%s'.",
+							new File(rootDir, "pom.xml").getCanonicalFile(),
+							new File(rootDir, "src/test/resources/pom.xml").getCanonicalFile()),
+					e.getMessage());
+		}
+		final ImmutableList<Pom> poms =
+				new WalkingPomFinder(pomReader, 4, ImmutableList.of("src")).findAllPoms(rootDir);
+		assertEquals(1, poms.size());
+		assertEquals(new File(rootDir, "pom.xml").getCanonicalFile(), poms.get(0).file);
+	}
+
+	@Test
+	public void the_stax_reader_should_find_the_same_poms()
+	{
+		assertSamePoms(new DefaultPomFinder(new StaxPomReader()));
+		assertSamePoms(new ParallelPomFinder(new StaxPomReader(), 4));
+	}
+
+	@Test
+	public void the_vtd_reader_should_find_the_same_poms()
+	{
+		assertSamePoms(new DefaultPomFinder(new VtdPomReader(new PomDocuments())));
+	}
+
+	@Test
+	public void a_warm_index_should_not_read_any_poms()
+	{
+		final File sourceDir = new File(IntegrationTest.SOURCE_DIR, "test-0013/original");
+		final File rootDir = new File(IntegrationTest.TARGET_DIR, "pom-index");
+		IntegrationTest.copyTree(sourceDir, rootDir);
+		PomIndex.toIndexFile(rootDir).delete();
+		final ImmutableList<Pom> expectedPoms = new DefaultPomFinder(new DefaultPomParser()).findAllPoms(rootDir);
+		final Function<PomReader, PomFinder> pomFinderFactory = new Function<PomReader, PomFinder>()
+		{
+			@Override
+			public PomFinder apply(final PomReader pomReader)
+			{
+				return new DefaultPomFinder(pomReader);
+			}
+		};
+		final PomReader pomReader = new DefaultPomReader(Main.POM_PARSER_SUPPLIER);
+		assertEquals(expectedPoms, new IndexedPomFinder(pomReader, pomFinderFactory).findAllPoms(rootDir));
+		assertTrue(PomIndex.toIndexFile(rootDir).isFile());
+		final PomReader failingPomReader = new PomReader()
+		{
+			@Override
+			public ParsedPom read(final File pomFile)
+			{
+				fail("Unexpected read of '" + pomFile + "'.");
+				return null;
+			}
+		};
+		assertEquals(expectedPoms, new IndexedPomFinder(failingPomReader, pomFinderFactory).findAllPoms(rootDir));
+	}
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2016 H.C. Wijbenga
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.hilcode.versionator;
+
+import static org.junit.Assert.assertEquals;
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Test;
+import com.github.hilcode.it.IntegrationTest;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.io.Files;
+
+/**
+ * Parses every POM of the integration test data from many threads at once, all sharing one parser.
+ */
+public final class PooledPomParserTest
+{
+	private static final int THREAD_COUNT = 16;
+
+	private static final int ROUND_COUNT = 4;
+
+	public static final ImmutableMap<File, ParsedPom> readAll(final PomReader pomReader)
+	{
+		final ImmutableMap.Builder<File, ParsedPom> pomsBuilder = ImmutableMap.builder();
+		for (final File file : Files.fileTreeTraverser().preOrderTraversal(IntegrationTest.SOURCE_DIR))
+		{
+			if (file.getName().equals("pom.xml"))
+			{
+				pomsBuilder.put(file, pomReader.read(file));
+			}
+		}
+		return pomsBuilder.build();
+	}
+
+	@Test
+	public void a_shared_parser_should_give_the_same_results_on_all_threads() throws Exception
+	{
+		final ImmutableMap<File, ParsedPom> expectedPoms = readAll(new DefaultPomReader(new DefaultPomParser()));
+		final PomReader pomReader = new DefaultPomReader(new PooledPomParser(Main.POM_PARSER_SUPPLIER));
+		final CountDownLatch startSignal = new CountDownLatch(1);
+		final ExecutorService executorService = Executors.newFixedThreadPool(THREAD_COUNT);
+		try
+		{
+			final List<Future<Integer>> futures = Lists.newArrayList();
+			for (int i = 0; i < THREAD_COUNT; i++)
+			{
+				final Random random = new Random(i);
+				futures.add(executorService.submit(new Callable<Integer>()
+				{
+					@Override
+					public Integer call() throws Exception
+					{
+						startSignal.await();
+						int count = 0;
+						for (int round = 0; round < ROUND_COUNT; round++)
+						{
+							final List<Map.Entry<File, ParsedPom>> entries = Lists.newArrayList(expectedPoms.entrySet());
+							Collections.shuffle(entries, random);
+							for (final Map.Entry<File, ParsedPom> entry : entries)
+							{
+								assertEquals(entry.getValue(), pomReader.read(entry.getKey()));
+								count++;
+							}
+						}
+						return Integer.valueOf(count);
+					}
+				}));
+			}
+			startSignal.countDown();
+			for (final Future<Integer> future : futures)
+			{
+				assertEquals(ROUND_COUNT * expectedPoms.size(), future.get().intValue());
+			}
+		}
+		finally
+		{
+			executorService.shutdownNow();
+		}
+	}
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright (C) 2016 H.C. Wijbenga
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.hilcode.versionator;
+
+import static com.github.hilcode.versionator.PomFinderUtils.findMissingParents;
+import static com.github.hilcode.versionator.PomFinderUtils.toCanonical;
+import static com.github.hilcode.versionator.PomFinderUtils.toPoms;
+import java.io.File;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Queues;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Finds the same POMs as {@code DefaultPomFinder}, but keeps up to {@code maxOpenFiles} reads in flight at any time,
+ * each on its own thread. Meant for file systems where opening and reading a file is slow compared to parsing it.
+ * Parents that are not modules are read once all modules have been read.
+ */
+public final class AsyncPomFinder
+	implements
+		PomFinder
+{
+	private final PomReader pomReader;
+
+	private final int maxOpenFiles;
+
+	public AsyncPomFinder(final PomReader pomReader, final int maxOpenFiles)
+	{
+		Preconditions.checkNotNull(pomReader, "Missing 'pomReader'.");
+		Preconditions.checkArgument(maxOpenFiles > 0, "Invalid 'maxOpenFiles': %s; must be positive.", maxOpenFiles);
+		this.pomReader = pomReader;
+		this.maxOpenFiles = maxOpenFiles;
+	}
+
+	@Override
+	public ImmutableList<Pom> findAllPoms(final File rootDir)
+	{
+		final Map<File, ParsedPom> parsedPoms = Maps.newHashMap();
+		final Set<File> pomFilesSeen = Sets.newHashSet();
+		final Queue<File> pomFilesToRead = Queues.newArrayDeque();
+		final File rootPomFile = toCanonical(new File(rootDir, "pom.xml").getAbsoluteFile());
+		pomFilesSeen.add(rootPomFile);
+		pomFilesToRead.add(rootPomFile);
+		final ExecutorService executorService = Executors.newCachedThreadPool(
+				new ThreadFactoryBuilder()
+						.setDaemon(true)
+						.setNameFormat("versionator-reader-%d")
+						.build());
+		try
+		{
+			final CompletionService<ParsedPom> completionService = new ExecutorCompletionService<>(executorService);
+			int readsInFlight = 0;
+			while (!pomFilesToRead.isEmpty() || readsInFlight > 0)
+			{
+				while (!pomFilesToRead.isEmpty() && readsInFlight < this.maxOpenFiles)
+				{
+					completionService.submit(newReadTask(pomFilesToRead.remove()));
+					readsInFlight++;
+				}
+				final ParsedPom parsedPom = take(completionService);
+				readsInFlight--;
+				parsedPoms.put(parsedPom.file, parsedPom);
+				for (final File moduleFile : parsedPom.findModuleFiles())
+				{
+					if (pomFilesSeen.add(moduleFile))
+					{
+						pomFilesToRead.add(moduleFile);
+					}
+				}
+			}
+		}
+		finally
+		{
+			executorService.shutdownNow();
+		}
+		findMissingParents(this.pomReader, parsedPoms);
+		return toPoms(parsedPoms);
+	}
+
+	private Callable<ParsedPom> newReadTask(final File pomFile)
+	{
+		return new Callable<ParsedPom>()
+		{
+			@Override
+			public ParsedPom call()
+			{
+				return AsyncPomFinder.this.pomReader.read(pomFile);
+			}
+		};
+	}
+
+	public static final <T> T take(final CompletionService<T> completionService)
+	{
+		try
+		{
+			return completionService.take().get();
+		}
+		catch (final ExecutionException e)
+		{
+			if (e.getCause() instanceof RuntimeException)
+			{
+				throw (RuntimeException) e.getCause();
+			}
+			throw new IllegalStateException(e.getCause().getMessage(), e.getCause());
+		}
+		catch (final InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e.getMessage(), e);
+		}
+	}
+}
@@ -27,12 +27,33 @@ public final class Command
 		VERBOSE
 	}
 
+	public static enum Discovery
+	{
+		SERIAL,
+		PARALLEL,
+		ASYNC,
+		WALK
+	}
+
+	public static enum Parsing
+	{
+		DOM,
+		STAX,
+		VTD
+	}
+
 	public static enum Grouping
 	{
 		BY_GAV,
 		BY_POM
 	}
 
+	public static enum Format
+	{
+		TEXT,
+		JSONL
+	}
+
 	public static enum RunType
 	{
 		ACTUAL,
@@ -61,20 +82,25 @@ public final class Command
 
 		public final Grouping grouping;
 
+		public final Format format;
+
 		public List(
 				final File rootDir,
 				final ImmutableList<String> patterns,
 				final Verbosity verbosity,
-				final Grouping grouping)
+				final Grouping grouping,
+				final Format format)
 		{
 			Preconditions.checkNotNull(rootDir, "Missing 'rootDir'.");
 			Preconditions.checkNotNull(patterns, "Missing 'patterns'.");
 			Preconditions.checkNotNull(verbosity, "Missing 'verbosity'.");
 			Preconditions.checkNotNull(grouping, "Missing 'grouping'.");
+			Preconditions.checkNotNull(format, "Missing 'format'.");
 			this.rootDir = rootDir;
 			this.patterns = patterns;
 			this.verbosity = verbosity;
 			this.grouping = grouping;
+			this.format = format;
 		}
 	}
 
@@ -184,4 +210,15 @@ public final class Command
 			this.exclusions = exclusions;
 		}
 	}
+
+	public static final class Watch
+	{
+		public final File rootDir;
+
+		public Watch(final File rootDir)
+		{
+			Preconditions.checkNotNull(rootDir, "Missing 'rootDir'.");
+			this.rootDir = rootDir;
+		}
+	}
 }
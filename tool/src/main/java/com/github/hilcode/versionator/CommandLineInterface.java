@@ -39,6 +39,67 @@ public final class CommandLineInterface
 					"-v", "--version"
 				})
 		public Boolean version;
+
+		@Parameter(
+				names =
+				{
+					"--discovery"
+				},
+				description = "How to discover the POMs: 'serial' follows the modules one at a time, " +
+						"'parallel' reads sibling modules concurrently, 'async' keeps many reads in flight " +
+						"for slow (e.g. network) file systems, 'walk' finds every pom.xml below the root " +
+						"directory even if it is not a module.")
+		public Command.Discovery discovery = Command.Discovery.SERIAL;
+
+		@Parameter(
+				names =
+				{
+					"--parser"
+				},
+				description = "How POMs are parsed: 'dom' builds a document and queries it, 'stax' reads everything " +
+						"in a single streaming pass, 'vtd' indexes each POM once and reuses that index when writing it.")
+		public Command.Parsing parsing = Command.Parsing.DOM;
+
+		@Parameter(
+				names =
+				{
+					"--threads"
+				},
+				description = "The number of threads to use for parallel work.")
+		public int threads = Runtime.getRuntime().availableProcessors();
+
+		@Parameter(
+				names =
+				{
+					"--write-threads"
+				},
+				description = "The number of POMs written at the same time by 'set-version' and 'release'.")
+		public int writeThreads = 1;
+
+		@Parameter(
+				names =
+				{
+					"--max-open-files"
+				},
+				description = "The maximum number of POMs read at the same time when using '--discovery async'.")
+		public int maxOpenFiles = 256;
+
+		@Parameter(
+				names =
+				{
+					"--prune"
+				},
+				description = "The glob patterns of the directories to skip when using '--discovery walk'.")
+		public List<String> pruneGlobs = Lists.newArrayList(WalkingPomFinder.DEFAULT_PRUNE_GLOBS);
+
+		@Parameter(
+				names =
+				{
+					"--index"
+				},
+				description = "Whether to keep an index of the POMs (in '" + PomIndex.INDEX_PATH + "' under the root " +
+						"directory) so that only changed POMs are parsed again.")
+		public boolean index = false;
 	}
 
 	@Parameters(separators = "=", commandDescription = "Lists dependencies.")
@@ -81,6 +142,16 @@ public final class CommandLineInterface
 				},
 				description = "Lists the dependencies by POM.")
 		public boolean groupByPom = false;
+
+		@Parameter(
+				names =
+				{
+					"--format"
+				},
+				description = "How to print the list: 'text' sorts and numbers it for people, 'jsonl' writes one " +
+						"JSON object per POM and dependency, in the order the POMs are found (ignores --verbose " +
+						"and --group-by-pom).")
+		public Command.Format format = Command.Format.TEXT;
 	}
 
 	@Parameters(separators = "=", commandDescription = "Sets a version")
@@ -173,4 +244,18 @@ public final class CommandLineInterface
 				description = "Which GAVs not to release.")
 		public List<String> exclusions = Collections.emptyList();
 	}
+
+	@Parameters(separators = "=", commandDescription = "Keeps the model up to date while POMs change")
+	public static final class CommandWatch
+	{
+		public static final String COMMAND = "watch";
+
+		@Parameter(
+				names =
+				{
+					"-d", "--directory"
+				},
+				description = "The root directory.")
+		public String rootDir = ".";
+	}
 }
@@ -15,12 +15,10 @@
  */
 package com.github.hilcode.versionator;
 
-import static com.github.hilcode.versionator.PomFinderUtils.toCanonical;
 import java.io.File;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
-import org.w3c.dom.Document;
 import com.google.common.base.Optional;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
@@ -31,12 +29,17 @@ public final class DefaultPomFinder
 	implements
 		PomFinder
 {
-	private final PomParser pomParser;
+	private final PomReader pomReader;
 
 	public DefaultPomFinder(final PomParser pomParser)
 	{
-		Preconditions.checkNotNull(pomParser, "Missing 'pomParser'.");
-		this.pomParser = pomParser;
+		this(new DefaultPomReader(pomParser));
+	}
+
+	public DefaultPomFinder(final PomReader pomReader)
+	{
+		Preconditions.checkNotNull(pomReader, "Missing 'pomReader'.");
+		this.pomReader = pomReader;
 	}
 
 	@Override
@@ -52,40 +55,23 @@ public final class DefaultPomFinder
 
 	public void findPoms(final Map<GroupArtifact, Pom> map, final File pomFile)
 	{
-		final Document pomDocument = this.pomParser.toDocument(pomFile);
-		final Tuple._3<GroupIdSource, VersionSource, Gav> gavTuple = this.pomParser.findGav(pomDocument);
-		final ImmutableList<String> modules = this.pomParser.findModules(pomDocument);
-		final Pom pom = Pom.BUILDER.build(
-				gavTuple._3,
-				gavTuple._1,
-				gavTuple._2,
-				toCanonical(pomFile.getAbsoluteFile()),
-				this.pomParser.findType(pomDocument),
-				findParentPom(map, pomFile, this.pomParser.findParentGav(pomDocument), pomDocument),
-				modules,
-				this.pomParser.findProperties(pomDocument),
-				this.pomParser.findDependencies(pomDocument));
-		map.put(gavTuple._3.groupArtifact, pom);
-		for (final String module : modules)
+		final ParsedPom parsedPom = this.pomReader.read(pomFile);
+		final Pom pom = parsedPom.toPom(findParentPom(map, parsedPom));
+		map.put(parsedPom.gav.groupArtifact, pom);
+		for (final File moduleFile : parsedPom.findModuleFiles())
 		{
-			final File moduleDir = new File(pomFile.getParentFile(), module);
-			findPoms(map, moduleDir.isFile() ? moduleDir : new File(moduleDir, "pom.xml"));
+			findPoms(map, moduleFile);
 		}
 	}
 
-	public Optional<Pom> findParentPom(
-			final Map<GroupArtifact, Pom> map,
-			final File pomFile,
-			final Optional<Gav> parentGav,
-			final Document pomDocument)
+	public Optional<Pom> findParentPom(final Map<GroupArtifact, Pom> map, final ParsedPom parsedPom)
 	{
-		if (parentGav.isPresent())
+		if (parsedPom.parentGav.isPresent())
 		{
-			final GroupArtifact parentGroupArtifact = parentGav.get().groupArtifact;
+			final GroupArtifact parentGroupArtifact = parsedPom.parentGav.get().groupArtifact;
 			if (!map.containsKey(parentGroupArtifact))
 			{
-				final File parentDir = new File(pomFile.getParentFile(), this.pomParser.findParentRelativePath(pomDocument));
-				findPoms(map, parentDir.isFile() ? parentDir : new File(parentDir, "pom.xml"));
+				findPoms(map, parsedPom.findParentFile().get());
 			}
 			return Optional.of(map.get(parentGroupArtifact));
 		}
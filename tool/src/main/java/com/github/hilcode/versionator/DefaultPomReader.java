@@ -0,0 +1,66 @@
+/*
+ * Copyright (C) 2016 H.C. Wijbenga
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.hilcode.versionator;
+
+import static com.github.hilcode.versionator.PomFinderUtils.toCanonical;
+import java.io.File;
+import org.w3c.dom.Document;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Supplier;
+
+/**
+ * Reads POMs using a {@code PomParser}; when given a supplier it pools the parsers it creates, so a single instance can
+ * be shared by concurrent finders.
+ */
+public final class DefaultPomReader
+	implements
+		PomReader
+{
+	private final PomParser pomParser;
+
+	public DefaultPomReader(final Supplier<PomParser> pomParserSupplier)
+	{
+		this(new PooledPomParser(pomParserSupplier));
+	}
+
+	/**
+	 * The given parser must be thread-safe if this reader is used by more than one thread.
+	 */
+	public DefaultPomReader(final PomParser pomParser)
+	{
+		Preconditions.checkNotNull(pomParser, "Missing 'pomParser'.");
+		this.pomParser = pomParser;
+	}
+
+	@Override
+	public ParsedPom read(final File pomFile)
+	{
+		final PomParser pomParser = this.pomParser;
+		final Document pomDocument = pomParser.toDocument(pomFile);
+		final Tuple._3<GroupIdSource, VersionSource, Gav> gavTuple = pomParser.findGav(pomDocument);
+		return new ParsedPom(
+				toCanonical(pomFile.getAbsoluteFile()),
+				gavTuple._1,
+				gavTuple._2,
+				gavTuple._3,
+				pomParser.findType(pomDocument),
+				pomParser.findParentGav(pomDocument),
+				pomParser.findParentRelativePath(pomDocument),
+				pomParser.findModules(pomDocument),
+				pomParser.findProperties(pomDocument),
+				pomParser.findDependencies(pomDocument));
+	}
+}
@@ -26,10 +26,13 @@ public final class Dependency
 {
 	public final Gav gav;
 
+	private final int hashCode;
+
 	private Dependency(final Gav gav)
 	{
 		Preconditions.checkNotNull(gav, "Missing 'gav'.");
 		this.gav = gav;
+		this.hashCode = computeHashCode();
 	}
 
 	public Dependency apply(final Gav newGav)
@@ -41,6 +44,10 @@ public final class Dependency
 	@Override
 	public int compareTo(final Dependency other)
 	{
+		if (this == other)
+		{
+			return 0;
+		}
 		return ComparisonChain
 				.start()
 				.compare(this.gav, other.gav)
@@ -55,6 +62,11 @@ public final class Dependency
 
 	@Override
 	public int hashCode()
+	{
+		return this.hashCode;
+	}
+
+	private int computeHashCode()
 	{
 		final int prime = 31;
 		int result = 1;
@@ -74,7 +86,7 @@ public final class Dependency
 			return false;
 		}
 		final Dependency other = (Dependency) object;
-		return compareTo(other) == 0;
+		return this.hashCode == other.hashCode && compareTo(other) == 0;
 	}
 
 	public interface Builder
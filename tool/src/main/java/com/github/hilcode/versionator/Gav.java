@@ -28,12 +28,15 @@ public final class Gav
 
 	public final Version version;
 
+	private final int hashCode;
+
 	private Gav(final GroupArtifact groupArtifact, final Version version)
 	{
 		Preconditions.checkNotNull(groupArtifact, "Missing 'groupArtifact'.");
 		Preconditions.checkNotNull(version, "Missing 'version'.");
 		this.groupArtifact = groupArtifact;
 		this.version = version;
+		this.hashCode = computeHashCode();
 	}
 
 	public Gav apply(final Version newVersion)
@@ -50,6 +53,10 @@ public final class Gav
 	@Override
 	public int compareTo(final Gav other)
 	{
+		if (this == other)
+		{
+			return 0;
+		}
 		return ComparisonChain
 				.start()
 				.compare(this.groupArtifact, other.groupArtifact)
@@ -59,6 +66,11 @@ public final class Gav
 
 	@Override
 	public int hashCode()
+	{
+		return this.hashCode;
+	}
+
+	private int computeHashCode()
 	{
 		final int prime = 31;
 		int result = 1;
@@ -79,7 +91,7 @@ public final class Gav
 			return false;
 		}
 		final Gav other = (Gav) object;
-		return compareTo(other) == 0;
+		return this.hashCode == other.hashCode && compareTo(other) == 0;
 	}
 
 	@Override
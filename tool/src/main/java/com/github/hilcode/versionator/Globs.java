@@ -15,10 +15,8 @@
  */
 package com.github.hilcode.versionator;
 
-import java.util.BitSet;
 import java.util.List;
 import com.google.common.base.Preconditions;
-import com.google.common.collect.Lists;
 
 public final class Globs
 {
@@ -27,113 +25,261 @@ public final class Globs
 		return new Glob(pattern);
 	}
 
-	static final class Glob
+	/**
+	 * Several globs run as one bit-parallel automaton: each glob's positions, followed by its accept bit, are laid out
+	 * side by side in a single {@code long}, so the text is read once for all of them. Only possible if all their
+	 * positions fit (see {@link #fits(List)}).
+	 */
+	static final class GlobUnion
 	{
-		public final String pattern;
+		private static final char SEPARATOR = '\0';
 
-		public Glob(final String pattern)
+		/**
+		 * The patterns, each followed by a {@link #SEPARATOR} at the position of its accept bit.
+		 */
+		private final String patterns;
+
+		private final long[] asciiMasks;
+
+		private final long anyMask;
+
+		private final long startMask;
+
+		private final long starMask;
+
+		private final long acceptMask;
+
+		/**
+		 * For each position, the index of the glob it belongs to.
+		 */
+		private final int[] globIndexes;
+
+		public static final boolean fits(final List<Glob> globs)
 		{
-			Preconditions.checkNotNull(pattern, "Missing 'pattern'.");
-			final String pattern_ = pattern.replaceAll("\\*\\*+", "*");
-			this.pattern = pattern_;
+			int length = 0;
+			for (final Glob glob : globs)
+			{
+				length += glob.pattern.length() + 1;
+			}
+			return length <= Long.SIZE;
 		}
 
-		public boolean match(final String text)
+		public GlobUnion(final List<Glob> globs)
 		{
-			if (text == null)
+			Preconditions.checkNotNull(globs, "Missing 'globs'.");
+			Preconditions.checkArgument(fits(globs), "Invalid 'globs': " + globs + "; must fit in a single long.");
+			this.asciiMasks = new long[Glob.ASCII_SIZE];
+			this.globIndexes = new int[Long.SIZE];
+			final StringBuilder patterns = new StringBuilder();
+			long anyMask = 0;
+			long startMask = 0;
+			long starMask = 0;
+			long acceptMask = 0;
+			for (int i = 0; i < globs.size(); i++)
 			{
-				return false;
+				final Glob glob = globs.get(i);
+				final int offset = patterns.length();
+				for (int c = 0; c < Glob.ASCII_SIZE; c++)
+				{
+					this.asciiMasks[c] |= glob.asciiMasks[c] << offset;
+				}
+				anyMask |= glob.anyMask << offset;
+				startMask |= 1L << offset;
+				starMask |= glob.starMask << offset;
+				acceptMask |= glob.acceptMask << offset;
+				patterns.append(glob.pattern).append(SEPARATOR);
+				for (int position = offset; position < patterns.length(); position++)
+				{
+					this.globIndexes[position] = i;
+				}
 			}
-			List<Integer> globOffsets = Lists.newArrayList();
-			globOffsets.add(Integer.valueOf(0));
-			for (int i = 0; i < text.length(); i++)
+			this.patterns = patterns.toString();
+			this.anyMask = anyMask;
+			this.startMask = startMask;
+			this.starMask = starMask;
+			this.acceptMask = acceptMask;
+		}
+
+		/**
+		 * Returns the index of the last glob that matches the given text, or {@code -1} if none does.
+		 */
+		public int lastMatch(final CharSequence text)
+		{
+			long states = close(this.startMask);
+			for (int i = 0; i < text.length() && states != 0; i++)
 			{
-				if (globOffsets.isEmpty())
+				final char c = text.charAt(i);
+				states = close((states & mask(c)) << 1 | states & this.starMask);
+			}
+			final long accepted = states & this.acceptMask;
+			return accepted == 0
+					? -1
+					: this.globIndexes[Long.SIZE - 1 - Long.numberOfLeadingZeros(accepted)];
+		}
+
+		private long close(final long states)
+		{
+			return states | (states & this.starMask) << 1;
+		}
+
+		private long mask(final char c)
+		{
+			if (c < Glob.ASCII_SIZE)
+			{
+				return this.asciiMasks[c];
+			}
+			long mask = this.anyMask;
+			for (int i = 0; i < this.patterns.length(); i++)
+			{
+				if (this.patterns.charAt(i) == c)
 				{
-					return false;
+					mask |= 1L << i;
 				}
-				final BitSet bits = new BitSet(this.pattern.length() + 1);
-				final List<Integer> globOffsetsNext = Lists.newArrayList();
-				final char nextCharInText = text.charAt(i);
-				for (final Integer globOffset : globOffsets)
+			}
+			return mask;
+		}
+	}
+
+	/**
+	 * A glob in which {@code '?'} matches any one character and {@code '*'} any number of characters. It is compiled
+	 * once; matching allocates nothing. Patterns of up to {@link #MAX_BIT_PARALLEL_LENGTH} characters run as a
+	 * bit-parallel automaton (one bit per pattern position, in a single {@code long}) in time linear in the text; longer
+	 * ones fall back to backtracking to the last {@code '*'}.
+	 */
+	static final class Glob
+	{
+		static final int MAX_BIT_PARALLEL_LENGTH = Long.SIZE - 1;
+
+		static final int ASCII_SIZE = 128;
+
+		public final String pattern;
+
+		/**
+		 * For each ASCII character, the positions that match it: the ones holding that character and all {@code '?'}s.
+		 */
+		private final long[] asciiMasks;
+
+		private final long anyMask;
+
+		private final long starMask;
+
+		private final long acceptMask;
+
+		public Glob(final String pattern)
+		{
+			Preconditions.checkNotNull(pattern, "Missing 'pattern'.");
+			final String pattern_ = pattern.replaceAll("\\*\\*+", "*");
+			this.pattern = pattern_;
+			this.asciiMasks = new long[ASCII_SIZE];
+			long anyMask = 0;
+			long starMask = 0;
+			if (pattern_.length() <= MAX_BIT_PARALLEL_LENGTH)
+			{
+				for (int i = 0; i < pattern_.length(); i++)
 				{
-					final int globIndex = globOffset.intValue();
-					if (globIndex >= this.pattern.length())
+					final char c = pattern_.charAt(i);
+					if (c == '?')
+					{
+						anyMask |= 1L << i;
+					}
+					else if (c == '*')
 					{
-						continue;
+						starMask |= 1L << i;
 					}
-					final char globChar = this.pattern.charAt(globIndex);
-					switch (globChar)
+					else if (c < ASCII_SIZE)
 					{
-						case '?':
-							handleSingleCharacterGlob(bits, globOffsetsNext, globIndex);
-							break;
-						case '*':
-							handleMultiCharacterGlob(bits, globOffsetsNext, nextCharInText, globOffset, globIndex);
-							break;
-						default:
-							if (globChar == nextCharInText)
-							{
-								handleSingleCharacterGlob(bits, globOffsetsNext, globIndex);
-							}
-							break;
+						this.asciiMasks[c] |= 1L << i;
 					}
 				}
-				globOffsets = globOffsetsNext;
+				for (int c = 0; c < ASCII_SIZE; c++)
+				{
+					this.asciiMasks[c] |= anyMask;
+				}
 			}
-			return determineResult(globOffsets);
+			this.anyMask = anyMask;
+			this.starMask = starMask;
+			this.acceptMask = 1L << pattern_.length();
 		}
 
-		public void handleSingleCharacterGlob(
-				final BitSet bits,
-				final List<Integer> globOffsets,
-				final int globIndex)
+		public boolean match(final CharSequence text)
 		{
-			if (!bits.get(globIndex + 1))
+			if (text == null)
 			{
-				bits.set(globIndex + 1);
-				globOffsets.add(Integer.valueOf(globIndex + 1));
+				return false;
 			}
+			if (this.pattern.length() > MAX_BIT_PARALLEL_LENGTH)
+			{
+				return matchByBacktracking(text);
+			}
+			long states = close(1L);
+			for (int i = 0; i < text.length() && states != 0; i++)
+			{
+				final char c = text.charAt(i);
+				states = close((states & mask(c)) << 1 | states & this.starMask);
+			}
+			return (states & this.acceptMask) != 0;
+		}
+
+		/**
+		 * Adds the position after each {@code '*'} (which may match nothing); consecutive {@code '*'}s have been merged,
+		 * so one step is enough.
+		 */
+		private long close(final long states)
+		{
+			return states | (states & this.starMask) << 1;
 		}
 
-		public void handleMultiCharacterGlob(
-				final BitSet bits,
-				final List<Integer> globOffsets,
-				final char nextCharInText,
-				final Integer globOffset,
-				final int globIndex)
+		private long mask(final char c)
 		{
-			if (!bits.get(globIndex))
+			if (c < ASCII_SIZE)
 			{
-				bits.set(globIndex);
-				globOffsets.add(globOffset);
+				return this.asciiMasks[c];
 			}
-			bits.set(globIndex + 1);
-			globOffsets.add(Integer.valueOf(globIndex + 1));
-			if (globIndex + 1 < this.pattern.length())
+			long mask = this.anyMask;
+			for (int i = 0; i < this.pattern.length(); i++)
 			{
-				if (this.pattern.charAt(globIndex + 1) == '?' || this.pattern.charAt(globIndex + 1) == nextCharInText)
+				if (this.pattern.charAt(i) == c)
 				{
-					bits.set(globIndex + 2);
-					globOffsets.add(Integer.valueOf(globIndex + 2));
+					mask |= 1L << i;
 				}
 			}
+			return mask;
 		}
 
-		public boolean determineResult(final List<Integer> globOffsets)
+		private boolean matchByBacktracking(final CharSequence text)
 		{
-			for (final Integer globOffset : globOffsets)
+			int patternIndex = 0;
+			int textIndex = 0;
+			int starPatternIndex = -1;
+			int starTextIndex = 0;
+			while (textIndex < text.length())
 			{
-				if (globOffset.intValue() == this.pattern.length())
+				if (patternIndex < this.pattern.length() && this.pattern.charAt(patternIndex) == '*')
 				{
-					return true;
+					starPatternIndex = patternIndex++;
+					starTextIndex = textIndex;
 				}
-				if (globOffset.intValue() + 1 == this.pattern.length() && this.pattern.endsWith("*"))
+				else if (patternIndex < this.pattern.length() &&
+						(this.pattern.charAt(patternIndex) == '?' || this.pattern.charAt(patternIndex) == text.charAt(textIndex)))
 				{
-					return true;
+					patternIndex++;
+					textIndex++;
 				}
+				else if (starPatternIndex != -1)
+				{
+					patternIndex = starPatternIndex + 1;
+					textIndex = ++starTextIndex;
+				}
+				else
+				{
+					return false;
+				}
+			}
+			while (patternIndex < this.pattern.length() && this.pattern.charAt(patternIndex) == '*')
+			{
+				patternIndex++;
 			}
-			return false;
+			return patternIndex == this.pattern.length();
 		}
 
 		@Override
@@ -16,7 +16,6 @@
 package com.github.hilcode.versionator;
 
 import com.google.common.base.Preconditions;
-import com.google.common.collect.ComparisonChain;
 import com.google.common.collect.Interner;
 import com.google.common.collect.Interners;
 
@@ -28,16 +27,31 @@ public final class GroupArtifact
 
 	public final ArtifactId artifactId;
 
+	private final int hashCode;
+
+	/**
+	 * Orders like ({@code groupId}, {@code artifactId}): the separator sorts before any other character and cannot occur
+	 * in either (neither XML nor a command line can carry it).
+	 */
+	private final String orderingKey;
+
 	private GroupArtifact(final GroupId groupId, final ArtifactId artifactId)
 	{
 		Preconditions.checkNotNull(groupId, "Missing 'groupId'.");
 		Preconditions.checkNotNull(artifactId, "Missing 'artifactId'.");
 		this.groupId = groupId;
 		this.artifactId = artifactId;
+		this.hashCode = computeHashCode();
+		this.orderingKey = groupId.toText() + '\u0000' + artifactId.toText();
 	}
 
 	@Override
 	public int hashCode()
+	{
+		return this.hashCode;
+	}
+
+	private int computeHashCode()
 	{
 		final int prime = 31;
 		int result = 1;
@@ -58,17 +72,17 @@ public final class GroupArtifact
 			return false;
 		}
 		final GroupArtifact other = (GroupArtifact) object;
-		return compareTo(other) == 0;
+		return this.hashCode == other.hashCode && compareTo(other) == 0;
 	}
 
 	@Override
 	public int compareTo(final GroupArtifact other)
 	{
-		return ComparisonChain
-				.start()
-				.compare(this.groupId, other.groupId)
-				.compare(this.artifactId, other.artifactId)
-				.result();
+		if (this == other)
+		{
+			return 0;
+		}
+		return this.orderingKey.compareTo(other.orderingKey);
 	}
 
 	public String toText()
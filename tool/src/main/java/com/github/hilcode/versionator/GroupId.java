@@ -26,16 +26,24 @@ public final class GroupId
 {
 	private final String value;
 
+	private final int hashCode;
+
 	private GroupId(final String value)
 	{
 		Preconditions.checkNotNull(value, "Missing 'value'.");
 		final String value_ = value.trim();
 		Preconditions.checkArgument(value_.length() > 0, "Empty 'value'.");
 		this.value = value_;
+		this.hashCode = computeHashCode();
 	}
 
 	@Override
 	public int hashCode()
+	{
+		return this.hashCode;
+	}
+
+	private int computeHashCode()
 	{
 		final int prime = 31;
 		int result = 1;
@@ -55,12 +63,16 @@ public final class GroupId
 			return false;
 		}
 		final GroupId other = (GroupId) object;
-		return compareTo(other) == 0;
+		return this.hashCode == other.hashCode && compareTo(other) == 0;
 	}
 
 	@Override
 	public int compareTo(final GroupId other)
 	{
+		if (this == other)
+		{
+			return 0;
+		}
 		return ComparisonChain
 				.start()
 				.compare(this.value, other.value)
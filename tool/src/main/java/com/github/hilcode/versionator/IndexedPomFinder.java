@@ -0,0 +1,52 @@
+/*
+ * Copyright (C) 2016 H.C. Wijbenga
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.hilcode.versionator;
+
+import java.io.File;
+import com.google.common.base.Function;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Runs a {@code PomFinder} on top of the persistent {@code PomIndex} of the root directory, so that only POMs that
+ * changed since the previous run are parsed again.
+ */
+public final class IndexedPomFinder
+	implements
+		PomFinder
+{
+	private final PomReader pomReader;
+
+	private final Function<PomReader, PomFinder> pomFinderFactory;
+
+	public IndexedPomFinder(final PomReader pomReader, final Function<PomReader, PomFinder> pomFinderFactory)
+	{
+		Preconditions.checkNotNull(pomReader, "Missing 'pomReader'.");
+		Preconditions.checkNotNull(pomFinderFactory, "Missing 'pomFinderFactory'.");
+		this.pomReader = pomReader;
+		this.pomFinderFactory = pomFinderFactory;
+	}
+
+	@Override
+	public ImmutableList<Pom> findAllPoms(final File rootDir)
+	{
+		final PomIndex pomIndex = PomIndex.load(PomIndex.toIndexFile(rootDir));
+		final PomFinder pomFinder = this.pomFinderFactory.apply(new IndexedPomReader(pomIndex, this.pomReader));
+		final ImmutableList<Pom> poms = pomFinder.findAllPoms(rootDir);
+		pomIndex.save();
+		return poms;
+	}
+}
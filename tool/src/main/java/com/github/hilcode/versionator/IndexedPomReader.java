@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2016 H.C. Wijbenga
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.hilcode.versionator;
+
+import static com.github.hilcode.versionator.PomFinderUtils.toCanonical;
+import java.io.File;
+import java.io.IOException;
+import com.google.common.base.Optional;
+import com.google.common.base.Preconditions;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+
+/**
+ * Only reads a POM (using the given {@code PomReader}) if it is not in the index, or if it changed since it was
+ * indexed. Matching size and modification time are trusted unless the entry is racy, in which case the content hash
+ * decides.
+ */
+public final class IndexedPomReader
+	implements
+		PomReader
+{
+	private final PomIndex pomIndex;
+
+	private final PomReader pomReader;
+
+	public IndexedPomReader(final PomIndex pomIndex, final PomReader pomReader)
+	{
+		Preconditions.checkNotNull(pomIndex, "Missing 'pomIndex'.");
+		Preconditions.checkNotNull(pomReader, "Missing 'pomReader'.");
+		this.pomIndex = pomIndex;
+		this.pomReader = pomReader;
+	}
+
+	@Override
+	public ParsedPom read(final File pomFile)
+	{
+		final File pomFile_ = toCanonical(pomFile.getAbsoluteFile());
+		final long size = pomFile_.length();
+		final long lastModified = pomFile_.lastModified();
+		final Optional<PomIndex.Entry> maybeEntry = this.pomIndex.find(pomFile_);
+		if (maybeEntry.isPresent() &&
+				maybeEntry.get().size == size &&
+				maybeEntry.get().lastModified == lastModified &&
+				!this.pomIndex.isRacy(pomFile_, maybeEntry.get()))
+		{
+			return maybeEntry.get().parsedPom;
+		}
+		final HashCode hash = hash(pomFile_);
+		if (maybeEntry.isPresent() && maybeEntry.get().size == size && maybeEntry.get().hash.equals(hash))
+		{
+			this.pomIndex.put(pomFile_, maybeEntry.get().touch(lastModified));
+			return maybeEntry.get().parsedPom;
+		}
+		final ParsedPom parsedPom = this.pomReader.read(pomFile_);
+		this.pomIndex.put(pomFile_, new PomIndex.Entry(size, lastModified, hash, parsedPom));
+		return parsedPom;
+	}
+
+	public static final HashCode hash(final File file)
+	{
+		try
+		{
+			return Files.hash(file, Hashing.murmur3_128());
+		}
+		catch (final IOException e)
+		{
+			throw new IllegalStateException(e.getMessage(), e);
+		}
+	}
+}
@@ -15,18 +15,15 @@
  */
 package com.github.hilcode.versionator;
 
+import java.io.BufferedWriter;
 import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Writer;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import javax.xml.xpath.XPathConstants;
-import javax.xml.xpath.XPathExpression;
-import javax.xml.xpath.XPathExpressionException;
-import org.w3c.dom.Document;
-import org.w3c.dom.Node;
-import com.github.hilcode.versionator.Globs.Glob;
-import com.google.common.base.Optional;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
@@ -35,20 +32,25 @@ import com.google.common.collect.Sets;
 
 public final class ListExecutor
 {
-	private final PomParser pomParser;
+	private static final int OUTPUT_BUFFER_SIZE = 64 * 1024;
 
 	private final PomFinder pomFinder;
 
 	private final Command.List commandList;
 
-	public ListExecutor(final PomParser pomParser, final PomFinder pomFinder, final Command.List commandList)
+	private final PatternSet patternSet;
+
+	private final PrintStream out;
+
+	public ListExecutor(final PomFinder pomFinder, final Command.List commandList, final PrintStream out)
 	{
-		Preconditions.checkNotNull(pomParser, "Missing 'pomParser'.");
 		Preconditions.checkNotNull(pomFinder, "Missing 'pomFinder'.");
 		Preconditions.checkNotNull(commandList, "Missing 'commandList'.");
-		this.pomParser = pomParser;
+		Preconditions.checkNotNull(out, "Missing 'out'.");
 		this.pomFinder = pomFinder;
 		this.commandList = commandList;
+		this.patternSet = new PatternSet(commandList.patterns);
+		this.out = out;
 	}
 
 	public final void execute()
@@ -58,66 +60,83 @@ public final class ListExecutor
 				? rootDir_.getParentFile()
 				: rootDir_;
 		final ImmutableList<Pom> poms = this.pomFinder.findAllPoms(rootDir);
-		final Set<PomAndGav> pomAndGavs = Sets.newConcurrentHashSet();
+		final BufferedWriter writer = new BufferedWriter(new PrintStreamWriter(this.out), OUTPUT_BUFFER_SIZE);
+		try
+		{
+			if (this.commandList.format == Command.Format.JSONL)
+			{
+				writeJsonLines(writer, rootDir, poms);
+			}
+			else
+			{
+				writeText(writer, rootDir, poms);
+			}
+			writer.flush();
+		}
+		catch (final IOException e)
+		{
+			throw new IllegalStateException(e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Writes one JSON object per included parent or dependency, POM by POM and unsorted, so nothing accumulates.
+	 */
+	private void writeJsonLines(final BufferedWriter writer, final File rootDir, final ImmutableList<Pom> poms)
+			throws IOException
+	{
 		for (final Pom pom : poms)
 		{
-			if (pom.parent.isPresent())
+			final Set<Gav> gavs = Sets.newLinkedHashSet();
+			if (pom.parent.isPresent() && this.patternSet.includes(pom.parent.get().gav))
 			{
-				final Pom parent = pom.parent.get();
-				boolean includeGav = this.commandList.patterns.get(0).startsWith("!");
-				for (final String pattern : this.commandList.patterns)
-				{
-					final boolean exclusion = pattern.startsWith("!");
-					final Glob glob = exclusion ? Globs.create(pattern.substring(1)) : Globs.create(pattern);
-					if (exclusion)
-					{
-						if (glob.match(parent.gav.toText()))
-						{
-							includeGav = false;
-						}
-					}
-					else
-					{
-						if (glob.match(parent.gav.toText()))
-						{
-							includeGav = true;
-						}
-					}
-				}
-				if (includeGav)
-				{
-					pomAndGavs.add(new PomAndGav(pom, parent.gav));
-				}
+				gavs.add(pom.parent.get().gav);
 			}
-			final Document pomDocument = this.pomParser.toDocument(pom.file);
-			final ImmutableList<Dependency> dependencies = this.pomParser.findDependencies(pomDocument);
-			for (final Dependency dependency : dependencies)
+			for (final Dependency dependency : pom.dependencies)
 			{
-				boolean includeGav = this.commandList.patterns.get(0).startsWith("!");
-				for (final String pattern : this.commandList.patterns)
+				if (this.patternSet.includes(dependency.gav))
 				{
-					final boolean exclusion = pattern.startsWith("!");
-					final Glob glob = exclusion ? Globs.create(pattern.substring(1)) : Globs.create(pattern);
-					if (exclusion)
-					{
-						if (glob.match(dependency.gav.toText()))
-						{
-							includeGav = false;
-						}
-					}
-					else
-					{
-						if (glob.match(dependency.gav.toText()))
-						{
-							includeGav = true;
-						}
-					}
-				}
-				if (includeGav)
-				{
-					pomAndGavs.add(new PomAndGav(pom, dependency.gav));
+					gavs.add(dependency.gav);
 				}
 			}
+			if (gavs.isEmpty())
+			{
+				continue;
+			}
+			final String pomText = pom.gav.toText();
+			final String pomFile = relativePomFile(rootDir, pom).getPath();
+			for (final Gav gav : gavs)
+			{
+				writer.write("{\"pom\":");
+				writeJsonString(writer, pomText);
+				writer.write(",\"file\":");
+				writeJsonString(writer, pomFile);
+				writer.write(",\"groupId\":");
+				writeJsonString(writer, gav.groupArtifact.groupId.toText());
+				writer.write(",\"artifactId\":");
+				writeJsonString(writer, gav.groupArtifact.artifactId.toText());
+				writer.write(",\"version\":");
+				writeJsonString(writer, gav.version.toText());
+				writer.write('}');
+				writer.newLine();
+			}
+		}
+	}
+
+	private void writeText(final BufferedWriter writer, final File rootDir, final ImmutableList<Pom> poms)
+			throws IOException
+	{
+		final Set<PomAndGav> pomAndGavs = Sets.newConcurrentHashSet();
+		for (final Pom pom : poms)
+		{
+			if (pom.parent.isPresent())
+			{
+				addIfIncluded(pomAndGavs, pom, pom.parent.get().gav);
+			}
+			for (final Dependency dependency : pom.dependencies)
+			{
+				addIfIncluded(pomAndGavs, pom, dependency.gav);
+			}
 		}
 		final List<PomAndGav> pomAndGavs_ = Lists.newArrayList(pomAndGavs);
 		Collections.sort(pomAndGavs_);
@@ -135,24 +154,30 @@ public final class ListExecutor
 				map.get(pomAndGav.pom).add(pomAndGav.gav);
 			}
 			Collections.sort(poms_);
-			final String pomMask = "%" + (1 + (int) Math.floor(Math.log10(poms_.size()))) + "d) %s (%s)";
+			final int pomIndexWidth = width(poms_.size());
 			int pomIndex = 0;
 			for (final Pom pom : poms_)
 			{
 				if (pomIndex != 0)
 				{
-					System.out.println();
+					writer.newLine();
 				}
 				pomIndex++;
-				final File relativePomFile = new File(pom.file.getPath().substring(rootDir.getAbsolutePath().length() + 1));
-				System.out.println(String.format(pomMask, Integer.valueOf(pomIndex), pom.gav.toText(), relativePomFile));
+				writeIndex(writer, "", pomIndex, pomIndexWidth);
+				writer.write(pom.gav.toText());
+				writer.write(" (");
+				writer.write(relativePomFile(rootDir, pom).getPath());
+				writer.write(')');
+				writer.newLine();
 				final List<Gav> gavs = map.get(pom);
-				final String gavMask = "    %" + (1 + (int) Math.floor(Math.log10(gavs.size()))) + "d) %s";
+				final int gavIndexWidth = width(gavs.size());
 				int gavIndex = 0;
 				for (final Gav gav : gavs)
 				{
 					gavIndex++;
-					System.out.println(String.format(gavMask, Integer.valueOf(gavIndex), gav.toText()));
+					writeIndex(writer, "    ", gavIndex, gavIndexWidth);
+					writer.write(gav.toText());
+					writer.newLine();
 				}
 			}
 		}
@@ -184,27 +209,33 @@ public final class ListExecutor
 						maxLength = length;
 					}
 				}
-				final int maxGroupLength = 1 + (int) Math.floor(Math.log10(maxGroupSize));
+				final int pomIndexWidth = width(maxGroupSize);
 				Collections.sort(groupArtifacts);
-				final String groupArtifactMask = "%" + (1 + (int) Math.floor(Math.log10(groupArtifacts.size()))) + "d) %s";
+				final int groupArtifactIndexWidth = width(groupArtifacts.size());
 				int groupArtifactIndex = 0;
-				final String pomMask = "    %" + maxGroupLength + "d) %-" + maxLength + "s   %s";
 				for (final GroupArtifact groupArtifact : groupArtifacts)
 				{
 					if (groupArtifactIndex != 0)
 					{
-						System.out.println();
+						writer.newLine();
 					}
 					groupArtifactIndex++;
-					System.out.println(String.format(groupArtifactMask, Integer.valueOf(groupArtifactIndex), groupArtifact.toText()));
+					writeIndex(writer, "", groupArtifactIndex, groupArtifactIndexWidth);
+					writer.write(groupArtifact.toText());
+					writer.newLine();
 					final List<Pom> poms_ = Lists.newArrayList(map.get(groupArtifact));
 					Collections.sort(poms_);
 					int pomIndex = 0;
 					for (final Pom pom : poms_)
 					{
 						pomIndex++;
-						final File relativePomFile = new File(pom.file.getPath().substring(rootDir.getAbsolutePath().length() + 1));
-						System.out.println(String.format(pomMask, Integer.valueOf(pomIndex), pom.gav.groupArtifact.toText(), relativePomFile));
+						writeIndex(writer, "    ", pomIndex, pomIndexWidth);
+						final String pomGroupArtifact = pom.gav.groupArtifact.toText();
+						writer.write(pomGroupArtifact);
+						writeSpaces(writer, maxLength - pomGroupArtifact.length());
+						writer.write("   ");
+						writer.write(relativePomFile(rootDir, pom).getPath());
+						writer.newLine();
 					}
 				}
 			}
@@ -222,27 +253,114 @@ public final class ListExecutor
 					}
 				}
 				Collections.sort(gavs);
-				final String gavMask = "%" + (1 + (int) Math.floor(Math.log10(gavs.size()))) + "d) %s";
+				final int gavIndexWidth = width(gavs.size());
 				int gavIndex = 0;
 				for (final Gav gav : gavs)
 				{
 					gavIndex++;
-					System.out.println(String.format(gavMask, Integer.valueOf(gavIndex), gav.toText()));
+					writeIndex(writer, "", gavIndex, gavIndexWidth);
+					writer.write(gav.toText());
+					writer.newLine();
 				}
 			}
 		}
 	}
 
-	public static final Optional<String> extractText(final Node parent, final XPathExpression xpathExpression)
+	private void addIfIncluded(final Set<PomAndGav> pomAndGavs, final Pom pom, final Gav gav)
 	{
-		try
+		if (this.patternSet.includes(gav))
+		{
+			pomAndGavs.add(new PomAndGav(pom, gav));
+		}
+	}
+
+	private static File relativePomFile(final File rootDir, final Pom pom)
+	{
+		return new File(pom.file.getPath().substring(rootDir.getAbsolutePath().length() + 1));
+	}
+
+	private static int width(final int count)
+	{
+		return Integer.toString(count).length();
+	}
+
+	/**
+	 * Writes {@code "<indent><index>) "} with the index right-aligned in {@code width} characters.
+	 */
+	private static void writeIndex(final Writer writer, final String indent, final int index, final int width)
+			throws IOException
+	{
+		final String index_ = Integer.toString(index);
+		writer.write(indent);
+		writeSpaces(writer, width - index_.length());
+		writer.write(index_);
+		writer.write(") ");
+	}
+
+	private static void writeSpaces(final Writer writer, final int count) throws IOException
+	{
+		for (int i = 0; i < count; i++)
 		{
-			final Node node = (Node) xpathExpression.evaluate(parent, XPathConstants.NODE);
-			return node != null ? Optional.of(node.getTextContent().trim()) : Optional.<String> absent();
+			writer.write(' ');
 		}
-		catch (final XPathExpressionException e)
+	}
+
+	private static void writeJsonString(final Writer writer, final String text) throws IOException
+	{
+		writer.write('"');
+		for (int i = 0; i < text.length(); i++)
 		{
-			throw new IllegalStateException(e.getMessage(), e);
+			final char c = text.charAt(i);
+			if (c == '"' || c == '\\')
+			{
+				writer.write('\\');
+				writer.write(c);
+			}
+			else if (c < 0x20)
+			{
+				writer.write("\\u00");
+				writer.write(Character.forDigit(c >> 4, 16));
+				writer.write(Character.forDigit(c & 0xF, 16));
+			}
+			else
+			{
+				writer.write(c);
+			}
+		}
+		writer.write('"');
+	}
+
+	/**
+	 * Hands buffered text to a {@code PrintStream} in large chunks, so it is still encoded the way that stream encodes
+	 * it.
+	 */
+	private static final class PrintStreamWriter
+		extends
+			Writer
+	{
+		private final PrintStream out;
+
+		PrintStreamWriter(final PrintStream out)
+		{
+			this.out = out;
+		}
+
+		@Override
+		public void write(final char[] buffer, final int offset, final int length)
+		{
+			this.out.print(new String(buffer, offset, length));
+		}
+
+		@Override
+		public void flush()
+		{
+			this.out.flush();
+		}
+
+		@Override
+		public void close()
+		{
+			flush();
 		}
 	}
 }
@@ -20,15 +20,90 @@ import com.beust.jcommander.JCommander;
 import com.beust.jcommander.ParameterException;
 import com.github.hilcode.versionator.CommandLineInterface.CommandRelease;
 import com.github.hilcode.versionator.CommandLineInterface.CommandSetVersion;
+import com.github.hilcode.versionator.CommandLineInterface.CommandWatch;
+import com.google.common.base.Function;
+import com.google.common.base.Supplier;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 
 public final class Main
 {
+	public static final Supplier<PomParser> POM_PARSER_SUPPLIER = new Supplier<PomParser>()
+	{
+		@Override
+		public PomParser get()
+		{
+			return new DefaultPomParser();
+		}
+	};
+
+	public static final PomFinder newPomFinder(final CommandLineInterface.Basics basics, final PomDocuments pomDocuments)
+	{
+		final PomReader pomReader = newPomReader(basics, pomDocuments);
+		return basics.index
+				? new IndexedPomFinder(pomReader, newPomFinderFactory(basics))
+				: newPomFinder(basics, pomReader);
+	}
+
+	public static final PomReader newPomReader(
+			final CommandLineInterface.Basics basics,
+			final PomDocuments pomDocuments)
+	{
+		switch (basics.parsing)
+		{
+			case VTD:
+				return new VtdPomReader(pomDocuments);
+			case STAX:
+				return new StaxPomReader();
+			case DOM:
+			default:
+				return new DefaultPomReader(POM_PARSER_SUPPLIER);
+		}
+	}
+
+	public static final Function<PomReader, PomFinder> newPomFinderFactory(final CommandLineInterface.Basics basics)
+	{
+		return new Function<PomReader, PomFinder>()
+		{
+			@Override
+			public PomFinder apply(final PomReader pomReader)
+			{
+				return newPomFinder(basics, pomReader);
+			}
+		};
+	}
+
+	public static final PomFinder newPomFinder(final CommandLineInterface.Basics basics, final PomReader pomReader)
+	{
+		switch (basics.discovery)
+		{
+			case PARALLEL:
+				return new ParallelPomFinder(pomReader, basics.threads);
+			case ASYNC:
+				return new AsyncPomFinder(pomReader, basics.maxOpenFiles);
+			case WALK:
+				return new WalkingPomFinder(pomReader, basics.threads, ImmutableList.copyOf(basics.pruneGlobs));
+			case SERIAL:
+			default:
+				return new DefaultPomFinder(pomReader);
+		}
+	}
+
+	public static final File recoverInterruptedWrite(final File rootDir)
+	{
+		final File journalFile = WriteJournal.toJournalFile(rootDir);
+		final int restoredFileCount = WriteJournal.recover(journalFile);
+		if (restoredFileCount > 0)
+		{
+			System.out.println(String.format(
+					"Restored %d POMs left behind by an interrupted write.",
+					Integer.valueOf(restoredFileCount)));
+		}
+		return journalFile;
+	}
+
 	public static final void main(final String[] args) throws Exception
 	{
-		final PomParser pomParser = new DefaultPomParser();
-		final PomFinder pomFinder = new DefaultPomFinder(pomParser);
 		final CommandLineInterface.Basics basics = new CommandLineInterface.Basics();
 		final JCommander commander = new JCommander(basics);
 		final CommandLineInterface.CommandList commandList = new CommandLineInterface.CommandList();
@@ -37,6 +112,8 @@ public final class Main
 		commander.addCommand(CommandSetVersion.COMMAND, commandSetVersion);
 		final CommandRelease commandRelease = new CommandRelease();
 		commander.addCommand(CommandRelease.COMMAND, commandRelease);
+		final CommandWatch commandWatch = new CommandWatch();
+		commander.addCommand(CommandWatch.COMMAND, commandWatch);
 		try
 		{
 			commander.parse(args);
@@ -53,6 +130,8 @@ public final class Main
 				}
 				return;
 			}
+			final PomDocuments pomDocuments = new PomDocuments();
+			final PomFinder pomFinder = newPomFinder(basics, pomDocuments);
 			if (CommandLineInterface.CommandList.COMMAND.equals(commander.getParsedCommand()))
 			{
 				final Command.List list = new Command.List(
@@ -63,8 +142,9 @@ public final class Main
 								: Command.Verbosity.NORMAL,
 						commandList.groupByPom
 								? Command.Grouping.BY_POM
-								: Command.Grouping.BY_GAV);
-				new ListExecutor(pomParser, pomFinder, list).execute();
+								: Command.Grouping.BY_GAV,
+						commandList.format);
+				new ListExecutor(pomFinder, list, System.out).execute();
 			}
 			else if (CommandSetVersion.COMMAND.equals(commander.getParsedCommand()))
 			{
@@ -80,6 +160,9 @@ public final class Main
 								? Command.Colour.NO_COLOUR
 								: Command.Colour.COLOUR,
 						ImmutableList.<String> copyOf(commandSetVersion.gavs));
+				final File journalFile = setVersion.runType == Command.RunType.ACTUAL
+						? recoverInterruptedWrite(setVersion.rootDir)
+						: WriteJournal.toJournalFile(setVersion.rootDir);
 				final Model model = Model.BUILDER.build(pomFinder.findAllPoms(setVersion.rootDir));
 				final ImmutableList.Builder<Gav> changedGavsBuilder = ImmutableList.builder();
 				for (final String gavAsText : setVersion.gavs)
@@ -87,8 +170,20 @@ public final class Main
 					changedGavsBuilder.add(Gav.BUILDER.build(gavAsText));
 				}
 				final Model result = model.apply(changedGavsBuilder.build());
-				final ModelWriter modelWriter = new ModelWriter(new VersionSetter(), new PropertySetter());
-				modelWriter.write(model, result);
+				final ModelWriter modelWriter = new ModelWriter(
+						new VersionSetter(),
+						new PropertySetter(),
+						pomDocuments,
+						basics.writeThreads,
+						journalFile);
+				if (setVersion.runType == Command.RunType.DRY_RUN)
+				{
+					modelWriter.diff(setVersion.rootDir, model, result, System.out);
+				}
+				else
+				{
+					modelWriter.write(model, result);
+				}
 			}
 			else if (CommandRelease.COMMAND.equals(commander.getParsedCommand()))
 			{
@@ -110,10 +205,53 @@ public final class Main
 					exclusionsBuilder.add(GroupArtifact.BUILDER.build(exclusionAsText));
 				}
 				final ImmutableSet<GroupArtifact> exclusions = exclusionsBuilder.build();
+				final File journalFile = release.runType == Command.RunType.ACTUAL
+						? recoverInterruptedWrite(release.rootDir)
+						: WriteJournal.toJournalFile(release.rootDir);
 				final Model model = Model.BUILDER.build(pomFinder.findAllPoms(release.rootDir));
 				final Model result = model.release(exclusions);
-				final ModelWriter modelWriter = new ModelWriter(new VersionSetter(), new PropertySetter());
-				modelWriter.write(model, result);
+				final ModelWriter modelWriter = new ModelWriter(
+						new VersionSetter(),
+						new PropertySetter(),
+						pomDocuments,
+						basics.writeThreads,
+						journalFile);
+				if (release.runType == Command.RunType.DRY_RUN)
+				{
+					modelWriter.diff(release.rootDir, model, result, System.out);
+				}
+				else
+				{
+					modelWriter.write(model, result);
+				}
+			}
+			else if (CommandWatch.COMMAND.equals(commander.getParsedCommand()))
+			{
+				final Command.Watch watch = new Command.Watch(new File(commandWatch.rootDir));
+				try (final ModelWatcher modelWatcher = new ModelWatcher(
+						newPomReader(basics, pomDocuments),
+						newPomFinderFactory(basics),
+						watch.rootDir))
+				{
+					System.out.println(String.format("Watching %d POMs.", Integer.valueOf(modelWatcher.getModel().poms.size())));
+					modelWatcher.run(new ModelWatcher.Listener()
+					{
+						@Override
+						public void modelUpdated(final Model model, final ImmutableList<Pom> rebuiltPoms)
+						{
+							System.out.println(String.format(
+									"Rebuilt %d of %d POMs.",
+									Integer.valueOf(rebuiltPoms.size()),
+									Integer.valueOf(model.poms.size())));
+						}
+
+						@Override
+						public void updateFailed(final RuntimeException exception)
+						{
+							System.err.println(exception.getMessage());
+						}
+					});
+				}
 			}
 			else
 			{
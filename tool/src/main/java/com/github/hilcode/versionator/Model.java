@@ -15,133 +15,274 @@
  */
 package com.github.hilcode.versionator;
 
-import static com.github.hilcode.versionator.VersionSource.POM;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Deque;
 import java.util.Map;
 import java.util.Set;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableCollection;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.Interner;
-import com.google.common.collect.Interners;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Queues;
 import com.google.common.collect.Sets;
 
 public final class Model
 {
-	public final ImmutableList<Pom> poms;
+	/**
+	 * What a {@code Model} knows about its POMs apart from their versions. Only versions ever change, so every
+	 * {@code Model} derived through {@link Model#apply(ImmutableCollection)} shares it.
+	 */
+	private static final class Index
+	{
+		public final SymbolTable symbols;
+
+		/**
+		 * The ID of each POM's own {@code GroupArtifact}, by POM index.
+		 */
+		public final int[] groupArtifactIds;
+
+		/**
+		 * The (ascending) indexes of the POMs that have each {@code GroupArtifact} as their own, their parent's or a
+		 * dependency's, by {@code GroupArtifact} ID.
+		 */
+		public final int[][] pomIndexes;
+
+		public Index(final ImmutableList<Pom> poms)
+		{
+			this.symbols = new SymbolTable();
+			this.groupArtifactIds = new int[poms.size()];
+			final int[][] groupArtifactIdsByPom = new int[poms.size()][];
+			for (int i = 0; i < poms.size(); i++)
+			{
+				final Pom pom = poms.get(i);
+				final int[] groupArtifactIds_ = new int[2 + pom.dependencies.size()];
+				int count = 0;
+				groupArtifactIds_[count++] = this.groupArtifactIds[i] = this.symbols.add(pom.gav.groupArtifact);
+				if (pom.parent.isPresent())
+				{
+					groupArtifactIds_[count++] = this.symbols.add(pom.parent.get().gav.groupArtifact);
+					// Every root a POM can have must have an ID, even if it is not in this model.
+					for (Pom ancestor = pom.parent.get(); ancestor.parent.isPresent(); ancestor = ancestor.parent.get())
+					{
+						this.symbols.add(ancestor.parent.get().gav.groupArtifact);
+					}
+				}
+				for (final Dependency dependency : pom.dependencies)
+				{
+					groupArtifactIds_[count++] = this.symbols.add(dependency.gav.groupArtifact);
+				}
+				groupArtifactIdsByPom[i] = Arrays.copyOf(groupArtifactIds_, count);
+			}
+			this.pomIndexes = invert(groupArtifactIdsByPom, this.symbols.groupArtifactCount());
+		}
+	}
+
+	/**
+	 * Turns, for each index, the keys it has into, for each key, the (ascending and distinct) indexes that have it.
+	 */
+	private static final int[][] invert(final int[][] keysByIndex, final int keyCount)
+	{
+		final int[] counts = new int[keyCount];
+		final int[] lastIndexes = new int[keyCount];
+		Arrays.fill(lastIndexes, -1);
+		for (int index = 0; index < keysByIndex.length; index++)
+		{
+			for (final int key : keysByIndex[index])
+			{
+				if (lastIndexes[key] != index)
+				{
+					lastIndexes[key] = index;
+					counts[key]++;
+				}
+			}
+		}
+		final int[][] indexesByKey = new int[keyCount][];
+		for (int key = 0; key < keyCount; key++)
+		{
+			indexesByKey[key] = new int[counts[key]];
+			counts[key] = 0;
+		}
+		for (int index = 0; index < keysByIndex.length; index++)
+		{
+			for (final int key : keysByIndex[index])
+			{
+				final int count = counts[key];
+				if (count == 0 || indexesByKey[key][count - 1] != index)
+				{
+					indexesByKey[key][count] = index;
+					counts[key] = count + 1;
+				}
+			}
+		}
+		return indexesByKey;
+	}
 
-	private Model(final ImmutableList<Pom> poms)
+	/**
+	 * Turns the key of each index into, for each key, the (ascending) indexes that have it.
+	 */
+	private static final int[][] group(final int[] keyByIndex, final int keyCount)
+	{
+		final int[] counts = new int[keyCount];
+		for (final int key : keyByIndex)
+		{
+			counts[key]++;
+		}
+		final int[][] indexesByKey = new int[keyCount][];
+		for (int key = 0; key < keyCount; key++)
+		{
+			indexesByKey[key] = new int[counts[key]];
+			counts[key] = 0;
+		}
+		for (int index = 0; index < keyByIndex.length; index++)
+		{
+			final int key = keyByIndex[index];
+			indexesByKey[key][counts[key]++] = index;
+		}
+		return indexesByKey;
+	}
+
+	public final PersistentVector<Pom> poms;
+
+	private final Index index;
+
+	private Model(final PersistentVector<Pom> poms, final Index index)
 	{
 		this.poms = poms;
+		this.index = index;
 	}
 
+	/**
+	 * Adds, for each {@code Gav} whose POM shares its version with other POMs (through version inheritance), the
+	 * {@code Gav}s of those other POMs. Every {@code Gav} is taken from the worklist once, and each group of POMs
+	 * sharing a root is only expanded once per version.
+	 */
 	public ImmutableCollection<Gav> createClosure(final ImmutableCollection<Gav> gavs)
 	{
-		final Map<GroupArtifact, Pom> groupArtifact2Pom = Maps.newConcurrentMap();
-		for (final Pom pom : this.poms)
+		final SymbolTable symbols = this.index.symbols;
+		final int[] groupArtifact2Root = new int[symbols.groupArtifactCount()];
+		Arrays.fill(groupArtifact2Root, -1);
+		final int[] rootByPom = new int[this.poms.size()];
+		final Map<Pom, Integer> rootIds = Maps.newHashMap();
+		for (int i = 0; i < this.poms.size(); i++)
 		{
-			groupArtifact2Pom.put(pom.gav.groupArtifact, pom);
+			final Pom root = this.poms.get(i).findRoot();
+			Integer rootId = rootIds.get(root);
+			if (rootId == null)
+			{
+				rootId = Integer.valueOf(rootIds.size());
+				rootIds.put(root, rootId);
+			}
+			rootByPom[i] = rootId.intValue();
+			groupArtifact2Root[this.index.groupArtifactIds[i]] = rootId.intValue();
 		}
-		final Map<GroupArtifact, Version> groupArtifact2Version = Maps.newConcurrentMap();
+		final int[][] root2Poms = group(rootByPom, rootIds.size());
+		final Version[] groupArtifact2Version = new Version[symbols.groupArtifactCount()];
+		final Set<GroupArtifact> groupArtifacts = Sets.newHashSet();
 		for (final Gav gav : gavs)
 		{
-			if (groupArtifact2Version.containsKey(gav.groupArtifact))
+			if (!groupArtifacts.add(gav.groupArtifact))
 			{
 				throw new IllegalStateException("Duplicate entry.");
 			}
-			groupArtifact2Version.put(gav.groupArtifact, gav.version);
+			final int groupArtifactId = symbols.find(gav.groupArtifact);
+			if (groupArtifactId != SymbolTable.NOT_FOUND)
+			{
+				groupArtifact2Version[groupArtifactId] = gav.version;
+			}
 		}
-		final Set<Gav> gavs_ = Sets.newConcurrentHashSet(gavs);
-		while (true)
+		final ImmutableSet.Builder<Gav> gavsBuilder = ImmutableSet.builder();
+		gavsBuilder.addAll(gavs);
+		final Deque<Gav> worklist = Queues.newArrayDeque(gavs);
+		final Map<Version, BitSet> expandedRoots = Maps.newHashMap();
+		final Map<Version, BitSet> addedGroupArtifacts = Maps.newHashMap();
+		while (!worklist.isEmpty())
 		{
-			boolean addedMoreGavs = false;
-			final Map<Pom, Set<Pom>> map = Maps.newConcurrentMap();
-			for (final Pom pom : this.poms)
+			final Gav gav = worklist.pop();
+			final int groupArtifactId = symbols.find(gav.groupArtifact);
+			final int root = groupArtifactId == SymbolTable.NOT_FOUND
+					? -1
+					: groupArtifact2Root[groupArtifactId];
+			if (root == -1 || !add(expandedRoots, gav.version, root))
 			{
-				if (pom.versionSource == POM)
-				{
-					if (!map.containsKey(pom))
-					{
-						map.put(pom, Sets.newConcurrentHashSet());
-					}
-					map.get(pom).add(pom);
-				}
-				else
-				{
-					final Pom pom_ = pom.findRoot();
-					if (!map.containsKey(pom_))
-					{
-						map.put(pom_, Sets.newConcurrentHashSet());
-					}
-					map.get(pom_).add(pom);
-				}
+				continue;
 			}
-			for (final Gav gav : gavs_)
+			for (final int pomIndex : root2Poms[root])
 			{
-				if (groupArtifact2Pom.containsKey(gav.groupArtifact))
+				final int groupArtifactId_ = this.index.groupArtifactIds[pomIndex];
+				final Version version = groupArtifact2Version[groupArtifactId_];
+				if (version == null)
 				{
-					final Pom pom = groupArtifact2Pom.get(gav.groupArtifact).findRoot();
-					for (final Pom pom_ : map.get(pom))
+					if (add(addedGroupArtifacts, gav.version, groupArtifactId_))
 					{
-						if (!groupArtifact2Version.containsKey(pom_.gav.groupArtifact))
-						{
-							addedMoreGavs = addedMoreGavs || gavs_.add(Gav.BUILDER.build(pom_.gav.groupArtifact, gav.version));
-						}
-						else if (groupArtifact2Version.get(pom_.gav.groupArtifact) != gav.version)
-						{
-							throw new IllegalStateException("Contradicting versions.");
-						}
+						final Gav gav_ = Gav.BUILDER.build(symbols.groupArtifact(groupArtifactId_), gav.version);
+						gavsBuilder.add(gav_);
+						worklist.add(gav_);
 					}
 				}
-			}
-			if (!addedMoreGavs)
-			{
-				break;
+				else if (version != gav.version)
+				{
+					throw new IllegalStateException("Contradicting versions.");
+				}
 			}
 		}
-		return ImmutableSet.copyOf(gavs_);
+		return gavsBuilder.build();
+	}
+
+	/**
+	 * Returns {@code true} if {@code id} was not yet in the set for {@code version}.
+	 */
+	private static final boolean add(final Map<Version, BitSet> idsByVersion, final Version version, final int id)
+	{
+		BitSet ids = idsByVersion.get(version);
+		if (ids == null)
+		{
+			ids = new BitSet();
+			idsByVersion.put(version, ids);
+		}
+		if (ids.get(id))
+		{
+			return false;
+		}
+		ids.set(id);
+		return true;
 	}
 
 	public Model apply(final ImmutableCollection<Gav> gavs)
 	{
 		Preconditions.checkNotNull(gavs, "Missing 'gavs'.");
+		return apply(gavs, new BitSet(this.poms.size()));
+	}
+
+	/**
+	 * Sets the index of each POM it changes in {@code changedIndexes}, so only those are searched for collateral
+	 * changes.
+	 */
+	private Model apply(final ImmutableCollection<Gav> gavs, final BitSet changedIndexes)
+	{
 		if (gavs.isEmpty())
 		{
 			return this;
 		}
 		final ImmutableCollection<Gav> gavs_ = createClosure(gavs);
-		Model result = this;
-		for (final Gav gav : gavs_)
-		{
-			boolean pomChange = false;
-			final ImmutableList.Builder<Pom> newPomsBuilder = ImmutableList.builder();
-			for (final Pom pom : result.poms)
-			{
-				final Pom newPom = pom.apply(gav);
-				pomChange = pomChange || newPom != pom;
-				newPomsBuilder.add(newPom);
-			}
-			result = pomChange
-					? BUILDER.build(newPomsBuilder.build())
-					: this;
-		}
-		final ImmutableSet.Builder<GroupArtifact> groupArtifactsBuilder = ImmutableSet.builder();
+		Model result = apply(toVersions(gavs_), changedIndexes);
+		final ImmutableList.Builder<GroupArtifact> groupArtifactsBuilder = ImmutableList.builder();
 		for (final Gav gav : gavs_)
 		{
 			groupArtifactsBuilder.add(gav.groupArtifact);
 		}
-		final ImmutableSet<GroupArtifact> groupArtifacts = groupArtifactsBuilder.build();
+		final BitSet groupArtifactIds = toGroupArtifactIds(groupArtifactsBuilder.build());
 		while (true)
 		{
 			final ImmutableSet.Builder<Gav> collateralGavs = ImmutableSet.builder();
-			for (final Tuple._2<Pom, Pom> tuple : Zipper.BUILDER.zip(this.poms, result.poms))
+			for (int i = changedIndexes.nextSetBit(0); i >= 0; i = changedIndexes.nextSetBit(i + 1))
 			{
-				final Pom originalPom = tuple._1;
-				final Pom resultPom = tuple._2;
+				final Pom originalPom = this.poms.get(i);
+				final Pom resultPom = result.poms.get(i);
 				if (originalPom != resultPom)
 				{
-					if (originalPom.gav != resultPom.gav && !groupArtifacts.contains(originalPom.gav.groupArtifact))
+					if (originalPom.gav != resultPom.gav && !groupArtifactIds.get(this.index.groupArtifactIds[i]))
 					{
 						collateralGavs.add(resultPom.gav);
 					}
@@ -149,14 +290,14 @@ public final class Model
 					{
 						final Pom pom = originalPom.findRoot();
 						final Gav gav = Gav.BUILDER.build(pom.gav.groupArtifact, pom.gav.version.next().toSnapshot());
-						if (!groupArtifacts.contains(gav.groupArtifact))
+						if (!contains(groupArtifactIds, gav.groupArtifact))
 						{
 							collateralGavs.add(gav);
 						}
 					}
 				}
 			}
-			final Model result_ = result.apply(collateralGavs.build());
+			final Model result_ = result.apply(collateralGavs.build(), changedIndexes);
 			if (result_ == result)
 			{
 				break;
@@ -166,12 +307,80 @@ public final class Model
 		return result;
 	}
 
+	/**
+	 * {@code GroupArtifact}s this model does not know are left out.
+	 */
+	private BitSet toGroupArtifactIds(final Iterable<GroupArtifact> groupArtifacts)
+	{
+		final BitSet groupArtifactIds = new BitSet(this.index.symbols.groupArtifactCount());
+		for (final GroupArtifact groupArtifact : groupArtifacts)
+		{
+			final int groupArtifactId = this.index.symbols.find(groupArtifact);
+			if (groupArtifactId != SymbolTable.NOT_FOUND)
+			{
+				groupArtifactIds.set(groupArtifactId);
+			}
+		}
+		return groupArtifactIds;
+	}
+
+	private boolean contains(final BitSet groupArtifactIds, final GroupArtifact groupArtifact)
+	{
+		final int groupArtifactId = this.index.symbols.find(groupArtifact);
+		return groupArtifactId != SymbolTable.NOT_FOUND && groupArtifactIds.get(groupArtifactId);
+	}
+
+	/**
+	 * Later {@code Gav}s win over earlier ones for the same {@code GroupArtifact}, as they did when applied one by one.
+	 */
+	private static final Map<GroupArtifact, Version> toVersions(final Iterable<Gav> gavs)
+	{
+		final Map<GroupArtifact, Version> versions = Maps.newHashMap();
+		for (final Gav gav : gavs)
+		{
+			versions.put(gav.groupArtifact, gav.version);
+		}
+		return versions;
+	}
+
+	private Model apply(final Map<GroupArtifact, Version> versions, final BitSet changedIndexes)
+	{
+		final BitSet pomIndexes = new BitSet(this.poms.size());
+		for (final GroupArtifact groupArtifact : versions.keySet())
+		{
+			final int groupArtifactId = this.index.symbols.find(groupArtifact);
+			if (groupArtifactId != SymbolTable.NOT_FOUND)
+			{
+				for (final int pomIndex : this.index.pomIndexes[groupArtifactId])
+				{
+					pomIndexes.set(pomIndex);
+				}
+			}
+		}
+		PersistentVector<Pom> newPoms = this.poms;
+		for (int i = pomIndexes.nextSetBit(0); i >= 0; i = pomIndexes.nextSetBit(i + 1))
+		{
+			final Pom pom = this.poms.get(i);
+			final Pom newPom = pom.apply(versions);
+			if (newPom != pom)
+			{
+				newPoms = newPoms.with(i, newPom);
+				changedIndexes.set(i);
+			}
+		}
+		return newPoms == this.poms
+				? this
+				: new Model(newPoms, this.index);
+	}
+
 	public Model release(final ImmutableCollection<GroupArtifact> exclusions)
 	{
+		final BitSet excluded = toGroupArtifactIds(exclusions);
 		final ImmutableList.Builder<Gav> gavsBuilder = ImmutableList.builder();
-		for (final Pom pom : this.poms)
+		for (int i = 0; i < this.poms.size(); i++)
 		{
-			if (pom.gav.version.isRelease() && !pom.isReleasable() && !exclusions.contains(pom.gav.groupArtifact))
+			final Pom pom = this.poms.get(i);
+			if (pom.gav.version.isRelease() && !pom.isReleasable() && !excluded.get(this.index.groupArtifactIds[i]))
 			{
 				gavsBuilder.add(Gav.BUILDER.build(pom.gav.groupArtifact, pom.gav.version.next().toSnapshot()));
 			}
@@ -181,34 +390,23 @@ public final class Model
 		final ImmutableList.Builder<Gav> gavsBuilder_ = ImmutableList.builder();
 		for (final Pom pom : result.poms)
 		{
-			if (pom.gav.version.isSnapshot() && !exclusions.contains(pom.gav.groupArtifact))
+			if (pom.gav.version.isSnapshot() && !contains(excluded, pom.gav.groupArtifact))
 			{
 				gavsBuilder_.add(Gav.BUILDER.build(pom.gav.groupArtifact, pom.gav.version.toRelease()));
 			}
-			if (pom.parent.isPresent() && pom.parent.get().gav.version.isSnapshot() && !exclusions.contains(pom.parent.get().gav.groupArtifact))
+			if (pom.parent.isPresent() && pom.parent.get().gav.version.isSnapshot() && !contains(excluded, pom.parent.get().gav.groupArtifact))
 			{
 				gavsBuilder_.add(Gav.BUILDER.build(pom.parent.get().gav.groupArtifact, pom.parent.get().gav.version.toRelease()));
 			}
 			for (final Dependency dependency : pom.dependencies)
 			{
-				if (dependency.gav.version.isSnapshot() && !exclusions.contains(dependency.gav.groupArtifact))
+				if (dependency.gav.version.isSnapshot() && !contains(excluded, dependency.gav.groupArtifact))
 				{
 					gavsBuilder_.add(Gav.BUILDER.build(dependency.gav.groupArtifact, dependency.gav.version.toRelease()));
 				}
 			}
 		}
-		final ImmutableList<Gav> gavs_ = gavsBuilder_.build();
-		final ImmutableList.Builder<Pom> pomsBuilder = ImmutableList.builder();
-		for (final Pom pom : result.poms)
-		{
-			Pom pom_ = pom;
-			for (final Gav gav_ : gavs_)
-			{
-				pom_ = pom_.apply(gav_);
-			}
-			pomsBuilder.add(pom_);
-		}
-		return Model.BUILDER.build(pomsBuilder.build());
+		return result.apply(toVersions(gavsBuilder_.build()), new BitSet());
 	}
 
 	public interface Builder
@@ -218,12 +416,10 @@ public final class Model
 
 	public static final Builder BUILDER = new Builder()
 	{
-		private final Interner<Model> interner = Interners.newWeakInterner();
-
 		@Override
 		public Model build(final ImmutableList<Pom> poms)
 		{
-			return this.interner.intern(new Model(poms));
+			return new Model(PersistentVector.copyOf(poms), new Index(poms));
 		}
 	};
 }
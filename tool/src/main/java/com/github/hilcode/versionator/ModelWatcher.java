@@ -0,0 +1,404 @@
+/*
+ * Copyright (C) 2016 H.C. Wijbenga
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.hilcode.versionator;
+
+import static com.github.hilcode.versionator.PomFinderUtils.link;
+import static com.github.hilcode.versionator.PomFinderUtils.sort;
+import static com.github.hilcode.versionator.PomFinderUtils.toCanonical;
+import static com.github.hilcode.versionator.PomFinderUtils.toGroupArtifact2ParsedPom;
+import static com.github.hilcode.versionator.PomFinderUtils.toPoms;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import com.google.common.base.Function;
+import com.google.common.base.Optional;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Queues;
+import com.google.common.collect.Sets;
+
+/**
+ * Keeps a {@code Model} up to date with the POMs on disk. Changed POMs are read again and only their {@code Pom}s
+ * (and those of their descendants) are rebuilt; everything else is reused as is.
+ * <p>
+ * Which POMs belong to the model is left to the {@code PomFinder}. Whenever that may have changed (a POM appeared or
+ * disappeared, or its modules or parent path changed), discovery is run again, reading only the POMs it has not seen.
+ */
+public final class ModelWatcher
+	implements
+		Closeable
+{
+	public interface Listener
+	{
+		void modelUpdated(Model model, ImmutableList<Pom> rebuiltPoms);
+
+		void updateFailed(RuntimeException exception);
+	}
+
+	private static final long SETTLE_MILLIS = 50;
+
+	private static final String POM_FILE_NAME = "pom.xml";
+
+	private final PomReader pomReader;
+
+	private final Function<PomReader, PomFinder> pomFinderFactory;
+
+	private final File rootDir;
+
+	private final WatchService watchService;
+
+	private final Set<Path> watchedDirs;
+
+	private Map<File, ParsedPom> parsedPoms;
+
+	private Map<GroupArtifact, Pom> groupArtifact2Pom;
+
+	private volatile Model model;
+
+	public ModelWatcher(
+			final PomReader pomReader,
+			final Function<PomReader, PomFinder> pomFinderFactory,
+			final File rootDir)
+	{
+		Preconditions.checkNotNull(pomReader, "Missing 'pomReader'.");
+		Preconditions.checkNotNull(pomFinderFactory, "Missing 'pomFinderFactory'.");
+		Preconditions.checkNotNull(rootDir, "Missing 'rootDir'.");
+		this.pomReader = pomReader;
+		this.pomFinderFactory = pomFinderFactory;
+		this.rootDir = rootDir;
+		this.parsedPoms = discover(Collections.<File, ParsedPom> emptyMap());
+		final ImmutableList<Pom> poms = toPoms(this.parsedPoms);
+		this.groupArtifact2Pom = Maps.newHashMap();
+		for (final Pom pom : poms)
+		{
+			this.groupArtifact2Pom.put(pom.gav.groupArtifact, pom);
+		}
+		this.model = Model.BUILDER.build(poms);
+		this.watchService = newWatchService();
+		this.watchedDirs = Sets.newHashSet();
+		registerDirs();
+	}
+
+	public Model getModel()
+	{
+		return this.model;
+	}
+
+	public synchronized ImmutableList<Pom> update(final Collection<File> changedFiles)
+	{
+		Map<File, ParsedPom> parsedPoms_ = Maps.newHashMap(this.parsedPoms);
+		final Set<GroupArtifact> changedGroupArtifacts = Sets.newHashSet();
+		boolean structureChanged = false;
+		for (final File changedFile : changedFiles)
+		{
+			final File pomFile = toCanonical(changedFile);
+			final ParsedPom oldParsedPom = parsedPoms_.remove(pomFile);
+			if (oldParsedPom != null)
+			{
+				changedGroupArtifacts.add(oldParsedPom.gav.groupArtifact);
+			}
+			if (!pomFile.isFile())
+			{
+				structureChanged = true;
+				continue;
+			}
+			final ParsedPom parsedPom = this.pomReader.read(oldParsedPom != null ? oldParsedPom.file : pomFile);
+			parsedPoms_.put(pomFile, parsedPom);
+			changedGroupArtifacts.add(parsedPom.gav.groupArtifact);
+			if (oldParsedPom == null || !findLinkedFiles(oldParsedPom).equals(findLinkedFiles(parsedPom)))
+			{
+				structureChanged = true;
+			}
+		}
+		if (structureChanged)
+		{
+			final Map<File, ParsedPom> discoveredPoms = discover(parsedPoms_);
+			for (final File pomFile : Sets.union(parsedPoms_.keySet(), discoveredPoms.keySet()))
+			{
+				final ParsedPom oldParsedPom = parsedPoms_.get(pomFile);
+				final ParsedPom newParsedPom = discoveredPoms.get(pomFile);
+				if (oldParsedPom != newParsedPom)
+				{
+					if (oldParsedPom != null)
+					{
+						changedGroupArtifacts.add(oldParsedPom.gav.groupArtifact);
+					}
+					if (newParsedPom != null)
+					{
+						changedGroupArtifacts.add(newParsedPom.gav.groupArtifact);
+					}
+				}
+			}
+			parsedPoms_ = discoveredPoms;
+		}
+		final Map<GroupArtifact, ParsedPom> groupArtifact2ParsedPom = toGroupArtifact2ParsedPom(parsedPoms_);
+		final Set<GroupArtifact> affectedGroupArtifacts = findDescendants(groupArtifact2ParsedPom, changedGroupArtifacts);
+		final Map<GroupArtifact, Pom> groupArtifact2Pom_ = Maps.newHashMap(this.groupArtifact2Pom);
+		groupArtifact2Pom_.keySet().removeAll(affectedGroupArtifacts);
+		final ImmutableList.Builder<Pom> rebuiltPomsBuilder = ImmutableList.builder();
+		for (final GroupArtifact groupArtifact : affectedGroupArtifacts)
+		{
+			final ParsedPom parsedPom = groupArtifact2ParsedPom.get(groupArtifact);
+			if (parsedPom != null)
+			{
+				rebuiltPomsBuilder.add(link(groupArtifact2ParsedPom, groupArtifact2Pom_, parsedPom));
+			}
+		}
+		this.parsedPoms = parsedPoms_;
+		this.groupArtifact2Pom = groupArtifact2Pom_;
+		this.model = Model.BUILDER.build(sort(groupArtifact2Pom_.values()));
+		registerDirs();
+		return sort(rebuiltPomsBuilder.build());
+	}
+
+	public void run(final Listener listener)
+	{
+		Preconditions.checkNotNull(listener, "Missing 'listener'.");
+		try
+		{
+			while (!Thread.currentThread().isInterrupted())
+			{
+				final Set<File> changedFiles = Sets.newHashSet();
+				WatchKey watchKey = this.watchService.take();
+				while (watchKey != null)
+				{
+					collectChangedFiles(watchKey, changedFiles);
+					watchKey = this.watchService.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS);
+				}
+				if (!changedFiles.isEmpty())
+				{
+					try
+					{
+						final ImmutableList<Pom> rebuiltPoms = update(changedFiles);
+						listener.modelUpdated(this.model, rebuiltPoms);
+					}
+					catch (final RuntimeException e)
+					{
+						listener.updateFailed(e);
+					}
+				}
+			}
+		}
+		catch (final InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		this.watchService.close();
+	}
+
+	private synchronized void collectChangedFiles(final WatchKey watchKey, final Set<File> changedFiles)
+	{
+		final Path dir = (Path) watchKey.watchable();
+		for (final WatchEvent<?> event : watchKey.pollEvents())
+		{
+			if (event.kind() == StandardWatchEventKinds.OVERFLOW)
+			{
+				for (final File pomFile : this.parsedPoms.keySet())
+				{
+					if (pomFile.getParentFile().toPath().equals(dir))
+					{
+						changedFiles.add(pomFile);
+					}
+				}
+				// Forces discovery, in case a POM was created.
+				changedFiles.add(dir.toFile());
+			}
+			else
+			{
+				final File file = dir.resolve((Path) event.context()).toFile();
+				if (this.parsedPoms.containsKey(file) || file.getName().equals(POM_FILE_NAME))
+				{
+					changedFiles.add(file);
+				}
+				else if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && file.isDirectory())
+				{
+					changedFiles.add(file);
+					registerNewDirs(file, changedFiles);
+				}
+			}
+		}
+		watchKey.reset();
+	}
+
+	/**
+	 * Watches a directory tree that was just created, collecting the POMs already written to it.
+	 */
+	private void registerNewDirs(final File newDir, final Set<File> changedFiles)
+	{
+		try
+		{
+			Files.walkFileTree(newDir.toPath(), new SimpleFileVisitor<Path>()
+			{
+				@Override
+				public FileVisitResult preVisitDirectory(final Path dir, final BasicFileAttributes attributes)
+				{
+					register(dir);
+					return FileVisitResult.CONTINUE;
+				}
+
+				@Override
+				public FileVisitResult visitFile(final Path file, final BasicFileAttributes attributes)
+				{
+					if (file.getFileName().toString().equals(POM_FILE_NAME))
+					{
+						changedFiles.add(file.toFile());
+					}
+					return FileVisitResult.CONTINUE;
+				}
+			});
+		}
+		catch (final IOException e)
+		{
+			throw new IllegalStateException(e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Runs the {@code PomFinder} again, reusing the given {@code ParsedPom}s and reading only the POMs not among them.
+	 * Returns all {@code ParsedPom}s it found, by canonical file.
+	 */
+	private Map<File, ParsedPom> discover(final Map<File, ParsedPom> knownParsedPoms)
+	{
+		final Map<File, ParsedPom> parsedPomsRead = Maps.newConcurrentMap();
+		final PomReader cachingPomReader = new PomReader()
+		{
+			@Override
+			public ParsedPom read(final File pomFile)
+			{
+				final File pomFile_ = toCanonical(pomFile);
+				final ParsedPom knownParsedPom = knownParsedPoms.get(pomFile_);
+				final ParsedPom parsedPom = knownParsedPom != null
+						? knownParsedPom
+						: ModelWatcher.this.pomReader.read(pomFile);
+				parsedPomsRead.put(pomFile_, parsedPom);
+				return parsedPom;
+			}
+		};
+		final ImmutableList<Pom> poms = this.pomFinderFactory.apply(cachingPomReader).findAllPoms(this.rootDir);
+		final Map<File, ParsedPom> discoveredPoms = Maps.newHashMap();
+		for (final Pom pom : poms)
+		{
+			final File pomFile = toCanonical(pom.file);
+			discoveredPoms.put(pomFile, parsedPomsRead.get(pomFile));
+		}
+		return discoveredPoms;
+	}
+
+	private ImmutableList<File> findLinkedFiles(final ParsedPom parsedPom)
+	{
+		final ImmutableList.Builder<File> linkedFilesBuilder = ImmutableList.builder();
+		final Optional<File> parentFile = parsedPom.findParentFile();
+		if (parentFile.isPresent())
+		{
+			linkedFilesBuilder.add(parentFile.get());
+		}
+		linkedFilesBuilder.addAll(parsedPom.findModuleFiles());
+		return linkedFilesBuilder.build();
+	}
+
+	private static final Set<GroupArtifact> findDescendants(
+			final Map<GroupArtifact, ParsedPom> groupArtifact2ParsedPom,
+			final Set<GroupArtifact> groupArtifacts)
+	{
+		final Map<GroupArtifact, List<GroupArtifact>> parent2Children = Maps.newHashMap();
+		for (final ParsedPom parsedPom : groupArtifact2ParsedPom.values())
+		{
+			if (parsedPom.parentGav.isPresent())
+			{
+				final GroupArtifact parentGroupArtifact = parsedPom.parentGav.get().groupArtifact;
+				if (!parent2Children.containsKey(parentGroupArtifact))
+				{
+					parent2Children.put(parentGroupArtifact, Lists.<GroupArtifact> newArrayList());
+				}
+				parent2Children.get(parentGroupArtifact).add(parsedPom.gav.groupArtifact);
+			}
+		}
+		final Set<GroupArtifact> descendants = Sets.newHashSet();
+		final Queue<GroupArtifact> groupArtifactsToVisit = Queues.newArrayDeque(groupArtifacts);
+		while (!groupArtifactsToVisit.isEmpty())
+		{
+			final GroupArtifact groupArtifact = groupArtifactsToVisit.remove();
+			if (descendants.add(groupArtifact) && parent2Children.containsKey(groupArtifact))
+			{
+				groupArtifactsToVisit.addAll(parent2Children.get(groupArtifact));
+			}
+		}
+		return descendants;
+	}
+
+	private synchronized void registerDirs()
+	{
+		for (final File pomFile : this.parsedPoms.keySet())
+		{
+			register(pomFile.getParentFile().toPath());
+		}
+	}
+
+	private void register(final Path dir)
+	{
+		if (this.watchedDirs.add(dir))
+		{
+			try
+			{
+				dir.register(
+						this.watchService,
+						StandardWatchEventKinds.ENTRY_CREATE,
+						StandardWatchEventKinds.ENTRY_MODIFY,
+						StandardWatchEventKinds.ENTRY_DELETE);
+			}
+			catch (final IOException e)
+			{
+				throw new IllegalStateException(e.getMessage(), e);
+			}
+		}
+	}
+
+	private static final WatchService newWatchService()
+	{
+		try
+		{
+			return FileSystems.getDefault().newWatchService();
+		}
+		catch (final IOException e)
+		{
+			throw new IllegalStateException(e.getMessage(), e);
+		}
+	}
+}
@@ -17,29 +17,85 @@ package com.github.hilcode.versionator;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import com.google.common.base.Preconditions;
-import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.io.Files;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.ximpleware.IByteBuffer;
+import com.ximpleware.VTDNav;
 
+/**
+ * Writes the POMs that differ between two models. Each POM's edits are independent, so with a parallelism above 1
+ * they are rendered concurrently by a bounded pool; either way every changed POM is attempted and all failures are
+ * reported together at the end. The new files only replace the originals (through a {@code WriteJournal}) once every
+ * one of them was rendered, so either all changed POMs are written or none are.
+ */
 public class ModelWriter
 {
 	private final VersionSetter versionSetter;
 
 	private final PropertySetter propertySetter;
 
+	private final PomDocuments pomDocuments;
+
+	private final int parallelism;
+
+	private final File journalFile;
+
 	public ModelWriter(final VersionSetter versionSetter, final PropertySetter propertySetter)
+	{
+		this(versionSetter, propertySetter, new PomDocuments(), 1, newTempJournalFile());
+	}
+
+	private static final File newTempJournalFile()
+	{
+		final File tempDir = Files.createTempDir();
+		tempDir.deleteOnExit();
+		return new File(tempDir, "journal");
+	}
+
+	/**
+	 * @param journalFile where the list of files being replaced is kept while they are; see
+	 *            {@link WriteJournal#recover(File)}.
+	 */
+	public ModelWriter(
+			final VersionSetter versionSetter,
+			final PropertySetter propertySetter,
+			final PomDocuments pomDocuments,
+			final int parallelism,
+			final File journalFile)
 	{
 		Preconditions.checkNotNull(versionSetter, "Missing 'versionSetter'.");
 		Preconditions.checkNotNull(propertySetter, "Missing 'propertySetter'.");
+		Preconditions.checkNotNull(pomDocuments, "Missing 'pomDocuments'.");
+		Preconditions.checkArgument(
+				parallelism > 0,
+				"Invalid 'parallelism': " + parallelism + "; must be positive.");
+		Preconditions.checkNotNull(journalFile, "Missing 'journalFile'.");
 		this.versionSetter = versionSetter;
 		this.propertySetter = propertySetter;
+		this.pomDocuments = pomDocuments;
+		this.parallelism = parallelism;
+		this.journalFile = journalFile;
 	}
 
 	public void write(final Model original, final Model result)
 	{
-		final File tempDir = Files.createTempDir();
-		tempDir.deleteOnExit();
-		final ImmutableMap.Builder<Pom, File> pomToFileMapBuilder = ImmutableMap.builder();
+		final WriteJournal writeJournal = new WriteJournal(this.journalFile);
+		final ImmutableList.Builder<Callable<File>> writeTasksBuilder = ImmutableList.builder();
+		final ImmutableList.Builder<File> pomFilesBuilder = ImmutableList.builder();
 		final Zipper<Pom> pomZipper = Zipper.BUILDER.zip(original.poms, result.poms);
 		for (final Tuple._2<Pom, Pom> tuple : pomZipper)
 		{
@@ -47,37 +103,232 @@ public class ModelWriter
 			final Pom resultPom = tuple._2;
 			if (originalPom != resultPom)
 			{
-				final File pomFile = new File(tempDir, originalPom.gav.groupArtifact.toText() + ".xml");
-				pomToFileMapBuilder.put(originalPom, pomFile);
-				copy(originalPom.file, pomFile);
-				if (originalPom.parent.isPresent())
+				writeTasksBuilder.add(newWriteTask(originalPom, resultPom, writeJournal));
+				pomFilesBuilder.add(originalPom.file);
+			}
+		}
+		final ImmutableList<Callable<File>> writeTasks = writeTasksBuilder.build();
+		final Map<File, Throwable> failures = this.parallelism == 1 || writeTasks.size() < 2
+				? writeSerially(writeTasks)
+				: writeConcurrently(writeTasks);
+		if (!failures.isEmpty())
+		{
+			writeJournal.abort();
+			final StringBuilder message = new StringBuilder();
+			message.append(String.format("Unable to write %d POM(s), no POM was changed:", Integer.valueOf(failures.size())));
+			for (final Map.Entry<File, Throwable> failure : failures.entrySet())
+			{
+				message.append(String.format("%n  %s: %s", failure.getKey(), failure.getValue().getMessage()));
+			}
+			final IllegalStateException exception = new IllegalStateException(message.toString());
+			for (final Throwable cause : failures.values())
+			{
+				exception.addSuppressed(cause);
+			}
+			throw exception;
+		}
+		try
+		{
+			writeJournal.commit();
+		}
+		finally
+		{
+			for (final File pomFile : pomFilesBuilder.build())
+			{
+				this.pomDocuments.remove(pomFile);
+			}
+		}
+	}
+
+	private Map<File, Throwable> writeSerially(final ImmutableList<Callable<File>> writeTasks)
+	{
+		final Map<File, Throwable> failures = Maps.newLinkedHashMap();
+		for (final Callable<File> writeTask : writeTasks)
+		{
+			try
+			{
+				writeTask.call();
+			}
+			catch (final WriteException e)
+			{
+				failures.put(e.pomFile, e.getCause());
+			}
+			catch (final Exception e)
+			{
+				throw new IllegalStateException(e.getMessage(), e);
+			}
+		}
+		return failures;
+	}
+
+	private Map<File, Throwable> writeConcurrently(final ImmutableList<Callable<File>> writeTasks)
+	{
+		final Map<File, Throwable> failures = Maps.newLinkedHashMap();
+		final ExecutorService executorService = Executors.newFixedThreadPool(
+				Math.min(this.parallelism, writeTasks.size()),
+				new ThreadFactoryBuilder()
+						.setDaemon(true)
+						.setNameFormat("versionator-writer-%d")
+						.build());
+		try
+		{
+			final List<Future<File>> futures = Lists.newArrayList();
+			for (final Callable<File> writeTask : writeTasks)
+			{
+				futures.add(executorService.submit(writeTask));
+			}
+			for (final Future<File> future : futures)
+			{
+				try
 				{
-					this.versionSetter.updateAll(pomFile, resultPom.parent.get().gav);
+					future.get();
 				}
-				for (final Dependency dependency : resultPom.dependencies)
+				catch (final ExecutionException e)
 				{
-					this.versionSetter.updateAll(pomFile, dependency.gav);
+					if (e.getCause() instanceof WriteException)
+					{
+						final WriteException writeException = (WriteException) e.getCause();
+						failures.put(writeException.pomFile, writeException.getCause());
+					}
+					else
+					{
+						throw new IllegalStateException(e.getCause().getMessage(), e.getCause());
+					}
 				}
-				for (final Property property : resultPom.properties)
+				catch (final InterruptedException e)
 				{
-					this.propertySetter.updateProperty(pomFile, property);
+					Thread.currentThread().interrupt();
+					throw new IllegalStateException(e.getMessage(), e);
 				}
-				this.versionSetter.updateAll(pomFile, resultPom.gav);
-				copy(pomFile, originalPom.file);
-				pomFile.delete();
 			}
 		}
+		finally
+		{
+			executorService.shutdownNow();
+		}
+		return failures;
+	}
+
+	private static final class WriteException
+		extends
+			Exception
+	{
+		private static final long serialVersionUID = 1L;
+
+		public final File pomFile;
+
+		public WriteException(final File pomFile, final RuntimeException cause)
+		{
+			super(cause.getMessage(), cause);
+			this.pomFile = pomFile;
+		}
 	}
 
-	public static final void copy(final File fromFile, final File toFile)
+	private Callable<File> newWriteTask(final Pom originalPom, final Pom resultPom, final WriteJournal writeJournal)
 	{
+		return new Callable<File>()
+		{
+			@Override
+			public File call() throws WriteException
+			{
+				try
+				{
+					writeJournal.stage(originalPom.file, render(originalPom, resultPom));
+					return originalPom.file;
+				}
+				catch (final RuntimeException e)
+				{
+					throw new WriteException(originalPom.file, e);
+				}
+			}
+		};
+	}
+
+	private byte[] render(final Pom originalPom, final Pom resultPom)
+	{
+		final VTDNav vtdNavigator = this.pomDocuments.get(originalPom.file);
+		return PomDocuments.render(vtdNavigator, findTokenUpdates(vtdNavigator, originalPom, resultPom));
+	}
+
+	private Map<Integer, String> findTokenUpdates(final VTDNav vtdNavigator, final Pom originalPom, final Pom resultPom)
+	{
+		final Map<GroupArtifact, Version> versions = Maps.newHashMap();
+		if (originalPom.parent.isPresent())
+		{
+			final Gav parentGav = resultPom.parent.get().gav;
+			versions.put(parentGav.groupArtifact, parentGav.version);
+		}
+		for (final Dependency dependency : resultPom.dependencies)
+		{
+			versions.put(dependency.gav.groupArtifact, dependency.gav.version);
+		}
+		versions.put(resultPom.gav.groupArtifact, resultPom.gav.version);
+		final Map<Integer, String> tokenUpdates = Maps.newLinkedHashMap();
+		this.versionSetter.updateAll(vtdNavigator, versions, tokenUpdates);
+		for (final Property property : resultPom.properties)
+		{
+			this.propertySetter.updateProperty(vtdNavigator, property, tokenUpdates);
+		}
+		return tokenUpdates;
+	}
+
+	/**
+	 * The dry run of {@link #write(Model, Model)}: writes what it would change as a unified diff (with paths relative
+	 * to the given directory), computed from the byte ranges of the tokens it would replace. No file is written.
+	 */
+	public void diff(final File rootDir, final Model original, final Model result, final OutputStream output)
+	{
+		final String rootPath = rootDir.getAbsoluteFile().toPath().normalize() + File.separator;
+		final Zipper<Pom> pomZipper = Zipper.BUILDER.zip(original.poms, result.poms);
 		try
 		{
-			Files.copy(fromFile, toFile);
+			for (final Tuple._2<Pom, Pom> tuple : pomZipper)
+			{
+				final Pom originalPom = tuple._1;
+				final Pom resultPom = tuple._2;
+				if (originalPom != resultPom)
+				{
+					final String path = originalPom.file.getPath().startsWith(rootPath)
+							? originalPom.file.getPath().substring(rootPath.length())
+							: originalPom.file.getPath();
+					diff(originalPom, resultPom, path.replace(File.separatorChar, '/'), output);
+				}
+			}
+			output.flush();
 		}
 		catch (final IOException e)
 		{
 			throw new IllegalStateException(e.getMessage(), e);
 		}
 	}
+
+	private void diff(final Pom originalPom, final Pom resultPom, final String path, final OutputStream output)
+			throws IOException
+	{
+		final VTDNav vtdNavigator = this.pomDocuments.get(originalPom.file);
+		final Charset charset;
+		switch (vtdNavigator.getEncoding())
+		{
+			case VTDNav.FORMAT_UTF_16BE:
+			case VTDNav.FORMAT_UTF_16LE:
+				throw new IllegalStateException(String.format("Unable to diff '%s': UTF-16 is not supported.", originalPom.file));
+			case VTDNav.FORMAT_UTF8:
+				charset = StandardCharsets.UTF_8;
+				break;
+			default:
+				charset = StandardCharsets.ISO_8859_1;
+				break;
+		}
+		final List<UnifiedDiff.Edit> edits = Lists.newArrayList();
+		for (final Map.Entry<Integer, String> tokenUpdate : findTokenUpdates(vtdNavigator, originalPom, resultPom).entrySet())
+		{
+			final int index = tokenUpdate.getKey().intValue();
+			edits.add(new UnifiedDiff.Edit(
+					vtdNavigator.getTokenOffset(index),
+					vtdNavigator.getTokenLength(index),
+					tokenUpdate.getValue().getBytes(charset)));
+		}
+		final IByteBuffer xml = vtdNavigator.getXML();
+		new UnifiedDiff(xml.getBytes(), xml.length()).write(output, path, edits);
+	}
 }
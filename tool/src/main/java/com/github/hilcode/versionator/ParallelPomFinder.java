@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2016 H.C. Wijbenga
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.hilcode.versionator;
+
+import static com.github.hilcode.versionator.PomFinderUtils.findMissingParents;
+import static com.github.hilcode.versionator.PomFinderUtils.toCanonical;
+import static com.github.hilcode.versionator.PomFinderUtils.toPoms;
+import java.io.File;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+/**
+ * Finds the same POMs as {@code DefaultPomFinder}, but reads sibling modules concurrently on a {@code ForkJoinPool}.
+ * Every file is read exactly once. Parents that are not modules are read once all modules have been read, and
+ * everything is linked after that.
+ */
+public final class ParallelPomFinder
+	implements
+		PomFinder
+{
+	private final PomReader pomReader;
+
+	private final int parallelism;
+
+	public ParallelPomFinder(final PomReader pomReader, final int parallelism)
+	{
+		Preconditions.checkNotNull(pomReader, "Missing 'pomReader'.");
+		Preconditions.checkArgument(parallelism > 0, "Invalid 'parallelism': %s; must be positive.", parallelism);
+		this.pomReader = pomReader;
+		this.parallelism = parallelism;
+	}
+
+	@Override
+	public ImmutableList<Pom> findAllPoms(final File rootDir)
+	{
+		final Map<File, ParsedPom> parsedPoms = Maps.newConcurrentMap();
+		final Set<File> pomFilesSeen = Sets.newConcurrentHashSet();
+		final File rootPomFile = toCanonical(new File(rootDir, "pom.xml").getAbsoluteFile());
+		pomFilesSeen.add(rootPomFile);
+		final ForkJoinPool forkJoinPool = new ForkJoinPool(this.parallelism);
+		try
+		{
+			forkJoinPool.invoke(new FindPomsTask(parsedPoms, pomFilesSeen, rootPomFile));
+		}
+		finally
+		{
+			forkJoinPool.shutdown();
+		}
+		findMissingParents(this.pomReader, parsedPoms);
+		return toPoms(parsedPoms);
+	}
+
+	private final class FindPomsTask
+		extends
+			RecursiveAction
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final Map<File, ParsedPom> parsedPoms;
+
+		private final Set<File> pomFilesSeen;
+
+		private final File pomFile;
+
+		public FindPomsTask(final Map<File, ParsedPom> parsedPoms, final Set<File> pomFilesSeen, final File pomFile)
+		{
+			this.parsedPoms = parsedPoms;
+			this.pomFilesSeen = pomFilesSeen;
+			this.pomFile = pomFile;
+		}
+
+		@Override
+		protected void compute()
+		{
+			final ParsedPom parsedPom = ParallelPomFinder.this.pomReader.read(this.pomFile);
+			this.parsedPoms.put(this.pomFile, parsedPom);
+			final List<FindPomsTask> tasks = Lists.newArrayList();
+			for (final File moduleFile : parsedPom.findModuleFiles())
+			{
+				if (this.pomFilesSeen.add(moduleFile))
+				{
+					tasks.add(new FindPomsTask(this.parsedPoms, this.pomFilesSeen, moduleFile));
+				}
+			}
+			invokeAll(tasks);
+		}
+	}
+}
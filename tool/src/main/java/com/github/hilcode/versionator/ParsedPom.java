@@ -0,0 +1,173 @@
+/*
+ * Copyright (C) 2016 H.C. Wijbenga
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.hilcode.versionator;
+
+import static com.github.hilcode.versionator.PomFinderUtils.toCanonical;
+import static com.github.hilcode.versionator.PomFinderUtils.toPomFile;
+import java.io.File;
+import com.google.common.base.Optional;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Everything extracted from a single POM file, before its parent has been linked.
+ */
+public final class ParsedPom
+{
+	public final File file;
+
+	public final GroupIdSource groupIdSource;
+
+	public final VersionSource versionSource;
+
+	public final Gav gav;
+
+	public final Type type;
+
+	public final Optional<Gav> parentGav;
+
+	public final String parentRelativePath;
+
+	public final ImmutableList<String> modules;
+
+	public final ImmutableList<Property> properties;
+
+	public final ImmutableList<Dependency> dependencies;
+
+	public ParsedPom(
+			final File file,
+			final GroupIdSource groupIdSource,
+			final VersionSource versionSource,
+			final Gav gav,
+			final Type type,
+			final Optional<Gav> parentGav,
+			final String parentRelativePath,
+			final ImmutableList<String> modules,
+			final ImmutableList<Property> properties,
+			final ImmutableList<Dependency> dependencies)
+	{
+		Preconditions.checkNotNull(file, "Missing 'file'.");
+		Preconditions.checkNotNull(groupIdSource, "Missing 'groupIdSource'.");
+		Preconditions.checkNotNull(versionSource, "Missing 'versionSource'.");
+		Preconditions.checkNotNull(gav, "Missing 'gav'.");
+		Preconditions.checkNotNull(type, "Missing 'type'.");
+		Preconditions.checkNotNull(parentGav, "Missing 'parentGav'.");
+		Preconditions.checkNotNull(parentRelativePath, "Missing 'parentRelativePath'.");
+		Preconditions.checkNotNull(modules, "Missing 'modules'.");
+		Preconditions.checkNotNull(properties, "Missing 'properties'.");
+		Preconditions.checkNotNull(dependencies, "Missing 'dependencies'.");
+		this.file = file;
+		this.groupIdSource = groupIdSource;
+		this.versionSource = versionSource;
+		this.gav = gav;
+		this.type = type;
+		this.parentGav = parentGav;
+		this.parentRelativePath = parentRelativePath;
+		this.modules = modules;
+		this.properties = properties;
+		this.dependencies = dependencies;
+	}
+
+	public Optional<File> findParentFile()
+	{
+		return this.parentGav.isPresent()
+				? Optional.of(toCanonical(toPomFile(new File(this.file.getParentFile(), this.parentRelativePath))))
+				: Optional.<File> absent();
+	}
+
+	public ImmutableList<File> findModuleFiles()
+	{
+		final ImmutableList.Builder<File> moduleFilesBuilder = ImmutableList.builder();
+		for (final String module : this.modules)
+		{
+			moduleFilesBuilder.add(toCanonical(toPomFile(new File(this.file.getParentFile(), module))));
+		}
+		return moduleFilesBuilder.build();
+	}
+
+	public Pom toPom(final Optional<Pom> parent)
+	{
+		Preconditions.checkNotNull(parent, "Missing 'parent'.");
+		return Pom.BUILDER.build(
+				this.gav,
+				this.groupIdSource,
+				this.versionSource,
+				this.file,
+				this.type,
+				parent,
+				this.modules,
+				this.properties,
+				this.dependencies);
+	}
+
+	@Override
+	public int hashCode()
+	{
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + this.file.hashCode();
+		result = prime * result + this.groupIdSource.hashCode();
+		result = prime * result + this.versionSource.hashCode();
+		result = prime * result + this.gav.hashCode();
+		result = prime * result + this.type.hashCode();
+		result = prime * result + this.parentGav.hashCode();
+		result = prime * result + this.parentRelativePath.hashCode();
+		result = prime * result + this.modules.hashCode();
+		result = prime * result + this.properties.hashCode();
+		result = prime * result + this.dependencies.hashCode();
+		return result;
+	}
+
+	@Override
+	public boolean equals(final Object object)
+	{
+		if (this == object)
+		{
+			return true;
+		}
+		if (object == null)
+		{
+			return false;
+		}
+		if (getClass() != object.getClass())
+		{
+			return false;
+		}
+		final ParsedPom other = (ParsedPom) object;
+		return this.file.equals(other.file) &&
+				this.groupIdSource == other.groupIdSource &&
+				this.versionSource == other.versionSource &&
+				this.gav.equals(other.gav) &&
+				this.type == other.type &&
+				this.parentGav.equals(other.parentGav) &&
+				this.parentRelativePath.equals(other.parentRelativePath) &&
+				this.modules.equals(other.modules) &&
+				this.properties.equals(other.properties) &&
+				this.dependencies.equals(other.dependencies);
+	}
+
+	@Override
+	public String toString()
+	{
+		final StringBuilder builder = new StringBuilder();
+		builder.append("(ParsedPom");
+		builder.append(" file='").append(this.file).append("'");
+		builder.append(" gav=").append(this.gav);
+		builder.append(" parentGav=").append(this.parentGav);
+		builder.append(")");
+		return builder.toString();
+	}
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright (C) 2016 H.C. Wijbenga
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.hilcode.versionator;
+
+import java.util.concurrent.ConcurrentMap;
+import com.github.hilcode.versionator.Globs.Glob;
+import com.github.hilcode.versionator.Globs.GlobUnion;
+import com.google.common.base.Optional;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+
+/**
+ * The include/exclude patterns of a {@code list} command, compiled once. A pattern starting with {@code '!'} excludes
+ * what it matches, any other pattern includes it. Later patterns override earlier ones, so the last matching pattern
+ * decides; if none matches, a GAV is included only if the first pattern is an exclusion.
+ * <p>
+ * If the patterns are short enough, they are matched all at once as a {@link GlobUnion}; otherwise one by one, from
+ * the last.
+ * <p>
+ * The same GAVs recur in many POMs, so the decision for each {@link Gav} is memoized. The cache is thread-safe and
+ * lives as long as the {@code PatternSet}, i.e. one command.
+ */
+public final class PatternSet
+{
+	private final ImmutableList<Glob> globs;
+
+	private final Optional<GlobUnion> globUnion;
+
+	private final boolean[] exclusions;
+
+	private final boolean includedByDefault;
+
+	private final ConcurrentMap<Gav, Boolean> decisions;
+
+	public PatternSet(final ImmutableList<String> patterns)
+	{
+		Preconditions.checkNotNull(patterns, "Missing 'patterns'.");
+		Preconditions.checkArgument(!patterns.isEmpty(), "Invalid 'patterns': " + patterns + "; must not be empty.");
+		final ImmutableList.Builder<Glob> globs = ImmutableList.builder();
+		this.exclusions = new boolean[patterns.size()];
+		for (int i = 0; i < patterns.size(); i++)
+		{
+			final String pattern = patterns.get(i);
+			final boolean exclusion = pattern.startsWith("!");
+			globs.add(Globs.create(exclusion ? pattern.substring(1) : pattern));
+			this.exclusions[i] = exclusion;
+		}
+		this.globs = globs.build();
+		this.globUnion = GlobUnion.fits(this.globs)
+				? Optional.of(new GlobUnion(this.globs))
+				: Optional.<GlobUnion> absent();
+		this.includedByDefault = this.exclusions[0];
+		this.decisions = Maps.newConcurrentMap();
+	}
+
+	public boolean includes(final Gav gav)
+	{
+		final Boolean cachedDecision = this.decisions.get(gav);
+		if (cachedDecision != null)
+		{
+			return cachedDecision.booleanValue();
+		}
+		final boolean decision = includes(new GavText(gav));
+		this.decisions.putIfAbsent(gav, Boolean.valueOf(decision));
+		return decision;
+	}
+
+	int decisionCount()
+	{
+		return this.decisions.size();
+	}
+
+	public boolean includes(final CharSequence text)
+	{
+		if (this.globUnion.isPresent())
+		{
+			final int i = this.globUnion.get().lastMatch(text);
+			return i == -1
+					? this.includedByDefault
+					: !this.exclusions[i];
+		}
+		for (int i = this.globs.size() - 1; i >= 0; i--)
+		{
+			if (this.globs.get(i).match(text))
+			{
+				return !this.exclusions[i];
+			}
+		}
+		return this.includedByDefault;
+	}
+
+	/**
+	 * {@link Gav#toText()} as a view over the text of its parts, so matching does not concatenate them.
+	 */
+	static final class GavText
+		implements
+			CharSequence
+	{
+		private final String groupId;
+
+		private final String artifactId;
+
+		private final String version;
+
+		private final int artifactIdStart;
+
+		private final int versionStart;
+
+		GavText(final Gav gav)
+		{
+			this.groupId = gav.groupArtifact.groupId.toText();
+			this.artifactId = gav.groupArtifact.artifactId.toText();
+			this.version = gav.version.toText();
+			this.artifactIdStart = this.groupId.length() + 1;
+			this.versionStart = this.artifactIdStart + this.artifactId.length() + 1;
+		}
+
+		@Override
+		public int length()
+		{
+			return this.versionStart + this.version.length();
+		}
+
+		@Override
+		public char charAt(final int index)
+		{
+			if (index >= this.versionStart)
+			{
+				return this.version.charAt(index - this.versionStart);
+			}
+			if (index >= this.artifactIdStart)
+			{
+				return index == this.versionStart - 1
+						? ':'
+						: this.artifactId.charAt(index - this.artifactIdStart);
+			}
+			return index == this.artifactIdStart - 1
+					? ':'
+					: this.groupId.charAt(index);
+		}
+
+		@Override
+		public CharSequence subSequence(final int start, final int end)
+		{
+			return toString().subSequence(start, end);
+		}
+
+		@Override
+		public String toString()
+		{
+			return this.groupId + ":" + this.artifactId + ":" + this.version;
+		}
+	}
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2016 H.C. Wijbenga
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.hilcode.versionator;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+import com.google.common.base.Preconditions;
+
+/**
+ * An immutable list of fixed size that is updated by path copying: elements are kept in a trie of 32-element arrays, so
+ * {@link #with(int, Object)} copies only the arrays on the path to the element and shares all others with the original.
+ */
+public final class PersistentVector<T>
+	extends
+		AbstractList<T>
+	implements
+		RandomAccess
+{
+	private static final int BITS = 5;
+
+	private static final int WIDTH = 1 << BITS;
+
+	private static final int MASK = WIDTH - 1;
+
+	public static final <T> PersistentVector<T> copyOf(final List<? extends T> elements)
+	{
+		Preconditions.checkNotNull(elements, "Missing 'elements'.");
+		Object[] nodes = elements.toArray();
+		int shift = 0;
+		while (nodes.length > WIDTH)
+		{
+			final Object[] parents = new Object[(nodes.length + MASK) >>> BITS];
+			for (int i = 0; i < parents.length; i++)
+			{
+				final Object[] parent = new Object[WIDTH];
+				System.arraycopy(nodes, i << BITS, parent, 0, Math.min(WIDTH, nodes.length - (i << BITS)));
+				parents[i] = parent;
+			}
+			nodes = parents;
+			shift += BITS;
+		}
+		return new PersistentVector<>(elements.size(), shift, nodes);
+	}
+
+	private final int size;
+
+	private final int shift;
+
+	private final Object[] root;
+
+	private PersistentVector(final int size, final int shift, final Object[] root)
+	{
+		this.size = size;
+		this.shift = shift;
+		this.root = root;
+	}
+
+	@Override
+	public int size()
+	{
+		return this.size;
+	}
+
+	@Override
+	public T get(final int index)
+	{
+		Preconditions.checkElementIndex(index, this.size);
+		Object[] node = this.root;
+		for (int level = this.shift; level > 0; level -= BITS)
+		{
+			node = (Object[]) node[(index >>> level) & MASK];
+		}
+		@SuppressWarnings("unchecked")
+		final T element = (T) node[index & MASK];
+		return element;
+	}
+
+	/**
+	 * Returns this vector itself if {@code element} is the element already at {@code index}.
+	 */
+	public PersistentVector<T> with(final int index, final T element)
+	{
+		return get(index) == element
+				? this
+				: new PersistentVector<T>(this.size, this.shift, with(this.root, this.shift, index, element));
+	}
+
+	private static final Object[] with(final Object[] node, final int level, final int index, final Object element)
+	{
+		final Object[] node_ = node.clone();
+		if (level == 0)
+		{
+			node_[index & MASK] = element;
+		}
+		else
+		{
+			final int i = (index >>> level) & MASK;
+			node_[i] = with((Object[]) node[i], level - BITS, index, element);
+		}
+		return node_;
+	}
+}
@@ -17,10 +17,12 @@ package com.github.hilcode.versionator;
 
 import static com.github.hilcode.versionator.VersionSource.PARENT;
 import java.io.File;
+import java.util.Map;
 import com.google.common.base.Optional;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ComparisonChain;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Interner;
 import com.google.common.collect.Interners;
 
@@ -46,6 +48,8 @@ public final class Pom
 
 	public final ImmutableList<Dependency> dependencies;
 
+	private final int hashCode;
+
 	private Pom(
 			final Gav gav,
 			final GroupIdSource groupIdSource,
@@ -75,6 +79,7 @@ public final class Pom
 		this.modules = modules;
 		this.properties = properties;
 		this.dependencies = dependencies;
+		this.hashCode = computeHashCode();
 	}
 
 	public Pom findRoot()
@@ -93,26 +98,40 @@ public final class Pom
 
 	public Pom apply(final Gav gav_)
 	{
-		final Optional<Pom> newParent =
-				this.parent.isPresent() &&
-						this.parent.get().gav.groupArtifact == gav_.groupArtifact &&
-						this.parent.get().gav.version != gav_.version
-								? Optional.of(this.parent.get().apply(gav_))
-								: this.parent;
-		final Gav newGav = this.gav.groupArtifact == gav_.groupArtifact
-				? gav_
+		return apply(ImmutableMap.of(gav_.groupArtifact, gav_.version));
+	}
+
+	/**
+	 * Applies all new versions at once, creating at most one new {@code Pom} (plus one for the parent). The parent is
+	 * only given its own new version, just as when applying each {@code Gav} separately.
+	 */
+	public Pom apply(final Map<GroupArtifact, Version> versions)
+	{
+		Optional<Pom> newParent = this.parent;
+		if (this.parent.isPresent())
+		{
+			final GroupArtifact parentGroupArtifact = this.parent.get().gav.groupArtifact;
+			final Version newParentVersion = versions.get(parentGroupArtifact);
+			if (newParentVersion != null && this.parent.get().gav.version != newParentVersion)
+			{
+				newParent = Optional.of(this.parent.get().apply(ImmutableMap.of(parentGroupArtifact, newParentVersion)));
+			}
+		}
+		final Version newVersion = versions.get(this.gav.groupArtifact);
+		final Gav newGav = newVersion != null
+				? Gav.BUILDER.build(this.gav.groupArtifact, newVersion)
 				: this.gav;
 		boolean dependencyChange = false;
 		final ImmutableList.Builder<Dependency> newDependenciesBuilder = ImmutableList.builder();
 		for (final Dependency dependency : this.dependencies)
 		{
-			final Dependency newDependency = dependency.gav.groupArtifact == gav_.groupArtifact
-					? Dependency.BUILDER.build(gav_)
+			final Version newDependencyVersion = versions.get(dependency.gav.groupArtifact);
+			final Dependency newDependency = newDependencyVersion != null && dependency.gav.version != newDependencyVersion
+					? Dependency.BUILDER.build(Gav.BUILDER.build(dependency.gav.groupArtifact, newDependencyVersion))
 					: dependency;
 			dependencyChange = dependencyChange || newDependency != dependency;
 			newDependenciesBuilder.add(newDependency);
 		}
-		final ImmutableList<Dependency> newDependencies = newDependenciesBuilder.build();
 		return newParent != this.parent || newGav != this.gav || dependencyChange
 				? BUILDER.build(
 						newGav,
@@ -123,7 +142,9 @@ public final class Pom
 						newParent,
 						this.modules,
 						this.properties,
-						newDependencies)
+						dependencyChange
+								? newDependenciesBuilder.build()
+								: this.dependencies)
 				: this;
 	}
 
@@ -145,6 +166,11 @@ public final class Pom
 
 	@Override
 	public int hashCode()
+	{
+		return this.hashCode;
+	}
+
+	private int computeHashCode()
 	{
 		final int prime = 31;
 		int result = 1;
@@ -176,12 +202,16 @@ public final class Pom
 			return false;
 		}
 		final Pom other = (Pom) object;
-		return compareTo(other) == 0;
+		return this.hashCode == other.hashCode && compareTo(other) == 0;
 	}
 
 	@Override
 	public int compareTo(final Pom other)
 	{
+		if (this == other)
+		{
+			return 0;
+		}
 		return ComparisonChain
 				.start()
 				.compare(this.gav, other.gav)
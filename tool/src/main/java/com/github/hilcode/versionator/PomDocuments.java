@@ -0,0 +1,176 @@
+/*
+ * Copyright (C) 2016 H.C. Wijbenga
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.hilcode.versionator;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+import com.google.common.base.Optional;
+import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
+import com.ximpleware.ModifyException;
+import com.ximpleware.TranscodeException;
+import com.ximpleware.VTDGen;
+import com.ximpleware.VTDNav;
+import com.ximpleware.XMLModifier;
+
+/**
+ * Keeps the VTD index of the POMs read during a run, so that writing a POM does not have to parse it again. The
+ * indexes are kept up to a total (approximate) size in bytes; evicted ones are simply parsed again when needed.
+ */
+public final class PomDocuments
+{
+	private static final class Entry
+	{
+		public final long size;
+
+		public final long lastModified;
+
+		public final VTDNav vtdNavigator;
+
+		public Entry(final long size, final long lastModified, final VTDNav vtdNavigator)
+		{
+			this.size = size;
+			this.lastModified = lastModified;
+			this.vtdNavigator = vtdNavigator;
+		}
+
+		public boolean isUpToDate(final File pomFile)
+		{
+			return this.size == pomFile.length() && this.lastModified == pomFile.lastModified();
+		}
+	}
+
+	public static final long DEFAULT_MAXIMUM_SIZE = 64L * 1024L * 1024L;
+
+	/**
+	 * A VTD index holds the document's bytes and one 64-bit record per token (plus a few, much smaller, location
+	 * caches).
+	 */
+	private static final Weigher<File, Entry> ENTRY_WEIGHER = new Weigher<File, Entry>()
+	{
+		@Override
+		public int weigh(final File pomFile, final Entry entry)
+		{
+			return entry.vtdNavigator.getXML().length() + 8 * entry.vtdNavigator.getTokenCount();
+		}
+	};
+
+	private final Cache<File, Entry> entries;
+
+	public PomDocuments()
+	{
+		this(DEFAULT_MAXIMUM_SIZE);
+	}
+
+	public PomDocuments(final long maximumSize)
+	{
+		Preconditions.checkArgument(
+				maximumSize >= 0,
+				"Invalid 'maximumSize': " + maximumSize + "; must be nonnegative.");
+		this.entries = CacheBuilder.newBuilder()
+				.maximumWeight(maximumSize)
+				.weigher(ENTRY_WEIGHER)
+				.build();
+	}
+
+	/**
+	 * Returns a navigator over the stored index of the given POM, unless that POM changed since it was indexed.
+	 */
+	public Optional<VTDNav> find(final File pomFile)
+	{
+		final Entry entry = this.entries.getIfPresent(pomFile);
+		return entry != null && entry.isUpToDate(pomFile)
+				? Optional.of(entry.vtdNavigator.cloneNav())
+				: Optional.<VTDNav> absent();
+	}
+
+	/**
+	 * Returns a navigator over the index of the given POM, indexing (and storing) it if needed.
+	 */
+	public VTDNav get(final File pomFile)
+	{
+		final Optional<VTDNav> maybeVtdNavigator = find(pomFile);
+		if (maybeVtdNavigator.isPresent())
+		{
+			return maybeVtdNavigator.get();
+		}
+		final long size = pomFile.length();
+		final long lastModified = pomFile.lastModified();
+		final VTDNav vtdNavigator = parse(pomFile);
+		this.entries.put(pomFile, new Entry(size, lastModified, vtdNavigator));
+		return vtdNavigator.cloneNav();
+	}
+
+	public void remove(final File pomFile)
+	{
+		this.entries.invalidate(pomFile);
+	}
+
+	public static final VTDNav parse(final File pomFile)
+	{
+		final VTDGen vtdGenerator = new VTDGen();
+		vtdGenerator.enableIgnoredWhiteSpace(true);
+		if (vtdGenerator.parseFile(pomFile.getPath(), true))
+		{
+			return vtdGenerator.getNav();
+		}
+		else
+		{
+			throw new IllegalStateException(String.format("Unable to parse '%s'.", pomFile.getPath()));
+		}
+	}
+
+	public static final byte[] render(final VTDNav vtdNavigator, final Map<Integer, String> tokenUpdates)
+	{
+		final XMLModifier xmlModifier = VersionSetter.newXmlModifier(vtdNavigator);
+		for (final Map.Entry<Integer, String> tokenUpdate : tokenUpdates.entrySet())
+		{
+			VersionSetter.updateToken(xmlModifier, tokenUpdate.getKey().intValue(), tokenUpdate.getValue());
+		}
+		final ByteArrayOutputStream outputStream = new ByteArrayOutputStream(vtdNavigator.getXML().length() + 64);
+		try
+		{
+			xmlModifier.output(outputStream);
+		}
+		catch (final IOException | ModifyException | TranscodeException e)
+		{
+			throw new IllegalStateException(e.getMessage(), e);
+		}
+		return outputStream.toByteArray();
+	}
+
+	public static final void write(
+			final VTDNav vtdNavigator,
+			final Map<Integer, String> tokenUpdates,
+			final File pomFile)
+	{
+		try (final OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(pomFile)))
+		{
+			outputStream.write(render(vtdNavigator, tokenUpdates));
+		}
+		catch (final IOException e)
+		{
+			throw new IllegalStateException(e.getMessage(), e);
+		}
+	}
+}
@@ -0,0 +1,326 @@
+/*
+ * Copyright (C) 2016 H.C. Wijbenga
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.hilcode.versionator;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+/**
+ * Collects everything {@code DefaultPomParser} extracts from a POM out of a stream of XML events, so that streaming
+ * readers can mirror its results exactly.
+ */
+public final class PomEventHandler
+{
+	private String parentGroupId;
+
+	private String parentArtifactId;
+
+	private String parentVersion;
+
+	private String parentRelativePath;
+
+	private String groupId;
+
+	private String artifactId;
+
+	private String version;
+
+	private String type;
+
+	private final ImmutableList.Builder<String> modulesBuilder = ImmutableList.builder();
+
+	private final Set<Property> properties = Sets.newHashSet();
+
+	private final Set<Dependency> dependencies = Sets.newHashSet();
+
+	private Element element;
+
+	public void startElement(final String name)
+	{
+		final Element parent = this.element;
+		if (parent == null)
+		{
+			this.element = new Element(null, name, false);
+			return;
+		}
+		final boolean firstChild = parent.addChildNode(false);
+		final boolean capturing = parent.capturing ||
+				parent.needsFirstChild && firstChild ||
+				isCaptured(parent, name);
+		this.element = new Element(parent, name, capturing);
+	}
+
+	private static final boolean isCaptured(final Element parent, final String name)
+	{
+		switch (name)
+		{
+			case "groupId":
+			case "artifactId":
+			case "version":
+				return parent.isProject() || parent.isChildOfProject("parent") || parent.depth >= 3;
+			case "type":
+				return parent.isProject();
+			case "relativePath":
+				return parent.isChildOfProject("parent");
+			default:
+				return false;
+		}
+	}
+
+	/**
+	 * Handles a non-element node; consecutive text events make up a single DOM text node.
+	 */
+	public void node(final String text, final boolean textNode, final boolean partOfTextContent)
+	{
+		final Element element_ = this.element;
+		if (element_ == null)
+		{
+			return;
+		}
+		if (element_.needsFirstChild)
+		{
+			final boolean continuesFirstChild = element_.firstChildIsOpenText && textNode;
+			if (element_.addChildNode(textNode))
+			{
+				element_.firstChildText = new StringBuilder(text);
+			}
+			else if (continuesFirstChild)
+			{
+				element_.firstChildText.append(text);
+			}
+		}
+		if (partOfTextContent)
+		{
+			for (Element e = element_; e != null && e.capturing; e = e.parent)
+			{
+				e.text.append(text);
+			}
+		}
+	}
+
+	public void endElement()
+	{
+		final Element element_ = this.element;
+		final Element parent = element_.parent;
+		if (parent != null && parent.needsFirstChild && parent.firstChildText == null)
+		{
+			parent.firstChildText = element_.text;
+		}
+		if (element_.capturing)
+		{
+			if (element_.isChildOfProject("groupId") && this.groupId == null)
+			{
+				this.groupId = element_.text();
+			}
+			else if (element_.isChildOfProject("artifactId") && this.artifactId == null)
+			{
+				this.artifactId = element_.text();
+			}
+			else if (element_.isChildOfProject("version") && this.version == null)
+			{
+				this.version = element_.text();
+			}
+			else if (element_.isChildOfProject("type") && this.type == null)
+			{
+				this.type = element_.text();
+			}
+			else if (element_.isChildOfProjectChild("parent", "groupId") && this.parentGroupId == null)
+			{
+				this.parentGroupId = element_.text();
+			}
+			else if (element_.isChildOfProjectChild("parent", "artifactId") && this.parentArtifactId == null)
+			{
+				this.parentArtifactId = element_.text();
+			}
+			else if (element_.isChildOfProjectChild("parent", "version") && this.parentVersion == null)
+			{
+				this.parentVersion = element_.text();
+			}
+			else if (element_.isChildOfProjectChild("parent", "relativePath") && this.parentRelativePath == null)
+			{
+				this.parentRelativePath = element_.text();
+			}
+			if (parent != null && parent.depth >= 3)
+			{
+				switch (element_.name)
+				{
+					case "groupId":
+						parent.groupId = element_.text();
+						break;
+					case "artifactId":
+						parent.artifactId = element_.text();
+						break;
+					case "version":
+						parent.version = element_.text();
+						break;
+					default:
+						break;
+				}
+			}
+		}
+		if (element_.isChildOfProjectChild("modules", "module"))
+		{
+			if (element_.firstChildText == null)
+			{
+				throw new IllegalStateException("Empty <module>.");
+			}
+			this.modulesBuilder.add(element_.firstChildText.toString().trim());
+		}
+		else if (element_.isChildOfProjectChild("properties"))
+		{
+			final String value = element_.firstChildText != null ? element_.firstChildText.toString().trim() : "";
+			this.properties.add(Property.BUILDER.build(Key.BUILDER.build(element_.name), value));
+		}
+		if (!element_.groupId.isEmpty() && !element_.artifactId.isEmpty() && !element_.version.isEmpty())
+		{
+			this.dependencies.add(
+					Dependency.BUILDER.build(
+							Gav.BUILDER.build(
+									GroupArtifact.BUILDER.build(
+											GroupId.BUILDER.build(element_.groupId),
+											ArtifactId.BUILDER.build(element_.artifactId)),
+									Version.BUILDER.build(element_.version))));
+		}
+		this.element = parent;
+	}
+
+	public ParsedPom toParsedPom(final File pomFile)
+	{
+		if (this.artifactId == null)
+		{
+			throw new IllegalStateException(String.format("Missing <artifactId> in '%s'.", pomFile));
+		}
+		final String parentGroupId_ = this.parentGroupId != null ? this.parentGroupId : "";
+		final String parentArtifactId_ = this.parentArtifactId != null ? this.parentArtifactId : "";
+		final String parentVersion_ = this.parentVersion != null ? this.parentVersion : "";
+		final Optional<Gav> parentGav = parentGroupId_.isEmpty() || parentArtifactId_.isEmpty() || parentVersion_.isEmpty()
+				? Optional.<Gav> absent()
+				: Optional.of(
+						Gav.BUILDER.build(
+								GroupArtifact.BUILDER.build(
+										GroupId.BUILDER.build(parentGroupId_),
+										ArtifactId.BUILDER.build(parentArtifactId_)),
+								Version.BUILDER.build(parentVersion_)));
+		final Gav gav = Gav.BUILDER.build(
+				GroupArtifact.BUILDER.build(
+						GroupId.BUILDER.build(this.groupId != null ? this.groupId : parentGroupId_),
+						ArtifactId.BUILDER.build(this.artifactId)),
+				Version.BUILDER.build(this.version != null ? this.version : parentVersion_));
+		final List<Property> sortedProperties = Lists.newArrayList(this.properties);
+		Collections.sort(sortedProperties);
+		final List<Dependency> sortedDependencies = Lists.newArrayList(this.dependencies);
+		Collections.sort(sortedDependencies);
+		return new ParsedPom(
+				pomFile,
+				this.groupId != null ? GroupIdSource.GROUP_ID_SOURCE_IS_POM : GroupIdSource.GROUP_ID_SOURCE_IS_PARENT,
+				this.version != null ? VersionSource.POM : VersionSource.PARENT,
+				gav,
+				this.type != null ? Type.toType(this.type) : Type.JAR,
+				parentGav,
+				this.parentRelativePath != null ? this.parentRelativePath : "..",
+				this.modulesBuilder.build(),
+				ImmutableList.copyOf(sortedProperties),
+				ImmutableList.copyOf(sortedDependencies));
+	}
+
+	private static final class Element
+	{
+		public final Element parent;
+
+		public final String name;
+
+		public final int depth;
+
+		public final boolean capturing;
+
+		public final boolean needsFirstChild;
+
+		public final StringBuilder text;
+
+		public boolean hasChildNodes;
+
+		public boolean firstChildIsOpenText;
+
+		public StringBuilder firstChildText;
+
+		public String groupId = "";
+
+		public String artifactId = "";
+
+		public String version = "";
+
+		public Element(final Element parent, final String name, final boolean capturing)
+		{
+			this.parent = parent;
+			this.name = name;
+			this.depth = parent == null ? 1 : parent.depth + 1;
+			this.capturing = capturing;
+			this.needsFirstChild = isChildOfProjectChild("modules", "module") || isChildOfProjectChild("properties");
+			this.text = capturing ? new StringBuilder() : null;
+		}
+
+		public boolean is(final String name_, final int depth_)
+		{
+			return this.depth == depth_ && this.name.equals(name_);
+		}
+
+		public boolean isProject()
+		{
+			return is("project", 1);
+		}
+
+		public boolean isChildOfProject(final String name_)
+		{
+			return is(name_, 2) && this.parent.isProject();
+		}
+
+		public boolean isChildOfProjectChild(final String parentName, final String name_)
+		{
+			return is(name_, 3) && this.parent.isChildOfProject(parentName);
+		}
+
+		public boolean isChildOfProjectChild(final String parentName)
+		{
+			return this.depth == 3 && this.parent.isChildOfProject(parentName);
+		}
+
+		/**
+		 * Returns {@code true} if the new child node is this element's first child node.
+		 */
+		public boolean addChildNode(final boolean textNode)
+		{
+			if (this.hasChildNodes)
+			{
+				this.firstChildIsOpenText = this.firstChildIsOpenText && textNode;
+				return false;
+			}
+			this.hasChildNodes = true;
+			this.firstChildIsOpenText = textNode;
+			return true;
+		}
+
+		public String text()
+		{
+			return this.text.toString().trim();
+		}
+	}
+}
@@ -16,6 +16,18 @@
 package com.github.hilcode.versionator;
 
 import java.io.File;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import com.google.common.base.Optional;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Ordering;
+import com.google.common.collect.Sets;
 
 public final class PomFinderUtils
 {
@@ -30,4 +42,108 @@ public final class PomFinderUtils
 			throw new IllegalStateException(e.getMessage(), e);
 		}
 	}
+
+	public static final File toPomFile(final File fileOrDir)
+	{
+		return fileOrDir.isFile() ? fileOrDir : new File(fileOrDir, "pom.xml");
+	}
+
+	public static final ImmutableList<Pom> toPoms(final Map<File, ParsedPom> parsedPoms)
+	{
+		final Map<GroupArtifact, ParsedPom> groupArtifact2ParsedPom = toGroupArtifact2ParsedPom(parsedPoms);
+		final Map<GroupArtifact, Pom> groupArtifact2Pom = Maps.newHashMap();
+		for (final ParsedPom parsedPom : groupArtifact2ParsedPom.values())
+		{
+			link(groupArtifact2ParsedPom, groupArtifact2Pom, parsedPom);
+		}
+		return sort(groupArtifact2Pom.values());
+	}
+
+	/**
+	 * Fails if two files have the same GroupArtifact (as a walk finds when, say, a test fixture copies a real POM),
+	 * as there is no telling which of them to link or to change.
+	 */
+	public static final Map<GroupArtifact, ParsedPom> toGroupArtifact2ParsedPom(final Map<File, ParsedPom> parsedPoms)
+	{
+		final Map<GroupArtifact, ParsedPom> groupArtifact2ParsedPom = Maps.newHashMap();
+		for (final File pomFile : Ordering.natural().sortedCopy(parsedPoms.keySet()))
+		{
+			final ParsedPom parsedPom = parsedPoms.get(pomFile);
+			final ParsedPom otherParsedPom = groupArtifact2ParsedPom.put(parsedPom.gav.groupArtifact, parsedPom);
+			Preconditions.checkState(
+					otherParsedPom == null,
+					"Duplicate '%s' in '%s' and '%s'.",
+					parsedPom.gav.groupArtifact.toText(),
+					otherParsedPom == null ? null : otherParsedPom.file,
+					pomFile);
+		}
+		return groupArtifact2ParsedPom;
+	}
+
+	/**
+	 * Reads the parents (through their {@code <relativePath>}) that are not among the given POMs, and their parents in
+	 * turn. Like {@code DefaultPomFinder}, a parent file is only read if no POM with the parent's GroupArtifact has been
+	 * found, so call this after all modules have been read.
+	 */
+	public static final void findMissingParents(final PomReader pomReader, final Map<File, ParsedPom> parsedPoms)
+	{
+		final Set<GroupArtifact> groupArtifacts = Sets.newHashSet();
+		for (final ParsedPom parsedPom : parsedPoms.values())
+		{
+			groupArtifacts.add(parsedPom.gav.groupArtifact);
+		}
+		final List<ParsedPom> parsedPomsToCheck = Lists.newArrayList(parsedPoms.values());
+		while (!parsedPomsToCheck.isEmpty())
+		{
+			final ParsedPom parsedPom = parsedPomsToCheck.remove(parsedPomsToCheck.size() - 1);
+			final Optional<File> parentFile = parsedPom.findParentFile();
+			if (parentFile.isPresent()
+					&& !groupArtifacts.contains(parsedPom.parentGav.get().groupArtifact)
+					&& !parsedPoms.containsKey(parentFile.get())
+					&& parentFile.get().isFile())
+			{
+				final ParsedPom parsedParent = pomReader.read(parentFile.get());
+				parsedPoms.put(parentFile.get(), parsedParent);
+				groupArtifacts.add(parsedParent.gav.groupArtifact);
+				parsedPomsToCheck.add(parsedParent);
+			}
+		}
+	}
+
+	public static final ImmutableList<Pom> sort(final Collection<Pom> poms)
+	{
+		final List<Pom> allPoms = Lists.newArrayList(poms);
+		Collections.sort(allPoms);
+		return ImmutableList.copyOf(allPoms);
+	}
+
+	public static final Pom link(
+			final Map<GroupArtifact, ParsedPom> groupArtifact2ParsedPom,
+			final Map<GroupArtifact, Pom> groupArtifact2Pom,
+			final ParsedPom parsedPom)
+	{
+		final Pom knownPom = groupArtifact2Pom.get(parsedPom.gav.groupArtifact);
+		if (knownPom != null)
+		{
+			return knownPom;
+		}
+		final Optional<Pom> parent;
+		if (parsedPom.parentGav.isPresent())
+		{
+			final ParsedPom parsedParent = groupArtifact2ParsedPom.get(parsedPom.parentGav.get().groupArtifact);
+			Preconditions.checkState(
+					parsedParent != null,
+					"Unable to find parent '%s' of '%s'.",
+					parsedPom.parentGav.get().toText(),
+					parsedPom.file);
+			parent = Optional.of(link(groupArtifact2ParsedPom, groupArtifact2Pom, parsedParent));
+		}
+		else
+		{
+			parent = Optional.absent();
+		}
+		final Pom pom = parsedPom.toPom(parent);
+		groupArtifact2Pom.put(parsedPom.gav.groupArtifact, pom);
+		return pom;
+	}
 }
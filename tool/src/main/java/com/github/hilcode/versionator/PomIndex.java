@@ -0,0 +1,306 @@
+/*
+ * Copyright (C) 2016 H.C. Wijbenga
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.hilcode.versionator;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import com.google.common.base.Optional;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.hash.HashCode;
+
+/**
+ * A persistent index of {@code ParsedPom}s, keyed by canonical file and validated by size, modification time and
+ * content hash. Safe for concurrent use.
+ * <p>
+ * Modification times may have a granularity of a second or more, so a file can change without its modification time
+ * changing. An entry whose modification time is not clearly older than the moment the index was saved (or that has not
+ * been saved yet) is therefore racy: it may be stale even if size and modification time match.
+ */
+public final class PomIndex
+{
+	public static final String INDEX_PATH = ".versionator/index";
+
+	private static final int FORMAT = 0x56490002;
+
+	private static final long MAX_MODIFICATION_TIME_GRANULARITY_MILLIS = 2000;
+
+	public static final class Entry
+	{
+		public final long size;
+
+		public final long lastModified;
+
+		public final HashCode hash;
+
+		public final ParsedPom parsedPom;
+
+		public Entry(final long size, final long lastModified, final HashCode hash, final ParsedPom parsedPom)
+		{
+			Preconditions.checkNotNull(hash, "Missing 'hash'.");
+			Preconditions.checkNotNull(parsedPom, "Missing 'parsedPom'.");
+			this.size = size;
+			this.lastModified = lastModified;
+			this.hash = hash;
+			this.parsedPom = parsedPom;
+		}
+
+		public Entry touch(final long newLastModified)
+		{
+			return new Entry(this.size, newLastModified, this.hash, this.parsedPom);
+		}
+	}
+
+	private final File indexFile;
+
+	private final Map<File, Entry> entries;
+
+	private final Set<File> filesUsed;
+
+	private final AtomicBoolean changed;
+
+	private final Set<File> filesPutSinceSave;
+
+	private volatile long savedAt;
+
+	private PomIndex(final File indexFile, final Map<File, Entry> entries, final long savedAt)
+	{
+		this.indexFile = indexFile;
+		this.entries = entries;
+		this.filesUsed = Sets.newConcurrentHashSet();
+		this.changed = new AtomicBoolean(false);
+		this.filesPutSinceSave = Sets.newConcurrentHashSet();
+		this.savedAt = savedAt;
+	}
+
+	public static final File toIndexFile(final File rootDir)
+	{
+		return new File(rootDir, INDEX_PATH);
+	}
+
+	public static final PomIndex load(final File indexFile)
+	{
+		Preconditions.checkNotNull(indexFile, "Missing 'indexFile'.");
+		final Map<File, Entry> entries = Maps.newConcurrentMap();
+		long savedAt = Long.MAX_VALUE;
+		if (indexFile.isFile())
+		{
+			try (final DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile))))
+			{
+				savedAt = readEntries(input, entries);
+			}
+			catch (final IOException | RuntimeException e)
+			{
+				// A damaged or outdated index is simply rebuilt.
+				entries.clear();
+			}
+		}
+		return new PomIndex(indexFile, entries, savedAt);
+	}
+
+	public Optional<Entry> find(final File pomFile)
+	{
+		this.filesUsed.add(pomFile);
+		return Optional.fromNullable(this.entries.get(pomFile));
+	}
+
+	public void put(final File pomFile, final Entry entry)
+	{
+		this.filesUsed.add(pomFile);
+		this.filesPutSinceSave.add(pomFile);
+		this.entries.put(pomFile, entry);
+		this.changed.set(true);
+	}
+
+	/**
+	 * Whether the given entry of the given file may be stale even though its size and modification time match.
+	 */
+	public boolean isRacy(final File pomFile, final Entry entry)
+	{
+		return this.filesPutSinceSave.contains(pomFile) ||
+				entry.lastModified + MAX_MODIFICATION_TIME_GRANULARITY_MILLIS > this.savedAt;
+	}
+
+	public void save()
+	{
+		if (!this.changed.get() && this.filesUsed.containsAll(this.entries.keySet()))
+		{
+			return;
+		}
+		final File indexDir = this.indexFile.getParentFile();
+		indexDir.mkdirs();
+		final File tempFile = new File(indexDir, this.indexFile.getName() + ".tmp");
+		final long savedAt_ = System.currentTimeMillis();
+		try
+		{
+			try (final DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile))))
+			{
+				writeEntries(output, savedAt_);
+			}
+			Files.move(tempFile.toPath(), this.indexFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+			this.changed.set(false);
+			this.filesPutSinceSave.clear();
+			this.savedAt = savedAt_;
+		}
+		catch (final IOException e)
+		{
+			tempFile.delete();
+			throw new IllegalStateException(e.getMessage(), e);
+		}
+	}
+
+	private void writeEntries(final DataOutputStream output, final long savedAt_) throws IOException
+	{
+		final Map<File, Entry> entriesUsed = Maps.newTreeMap();
+		for (final File pomFile : this.filesUsed)
+		{
+			final Entry entry = this.entries.get(pomFile);
+			if (entry != null)
+			{
+				entriesUsed.put(pomFile, entry);
+			}
+		}
+		output.writeInt(FORMAT);
+		output.writeLong(savedAt_);
+		output.writeInt(entriesUsed.size());
+		for (final Map.Entry<File, Entry> fileAndEntry : entriesUsed.entrySet())
+		{
+			final Entry entry = fileAndEntry.getValue();
+			final ParsedPom parsedPom = entry.parsedPom;
+			output.writeUTF(fileAndEntry.getKey().getPath());
+			output.writeLong(entry.size);
+			output.writeLong(entry.lastModified);
+			final byte[] hash = entry.hash.asBytes();
+			output.writeInt(hash.length);
+			output.write(hash);
+			output.writeUTF(parsedPom.groupIdSource.name());
+			output.writeUTF(parsedPom.versionSource.name());
+			writeGav(output, parsedPom.gav);
+			output.writeUTF(parsedPom.type.name());
+			output.writeBoolean(parsedPom.parentGav.isPresent());
+			if (parsedPom.parentGav.isPresent())
+			{
+				writeGav(output, parsedPom.parentGav.get());
+			}
+			output.writeUTF(parsedPom.parentRelativePath);
+			output.writeInt(parsedPom.modules.size());
+			for (final String module : parsedPom.modules)
+			{
+				output.writeUTF(module);
+			}
+			output.writeInt(parsedPom.properties.size());
+			for (final Property property : parsedPom.properties)
+			{
+				output.writeUTF(property.key.toText());
+				output.writeUTF(property.value);
+			}
+			output.writeInt(parsedPom.dependencies.size());
+			for (final Dependency dependency : parsedPom.dependencies)
+			{
+				writeGav(output, dependency.gav);
+			}
+		}
+	}
+
+	private static final void writeGav(final DataOutputStream output, final Gav gav) throws IOException
+	{
+		output.writeUTF(gav.groupArtifact.groupId.toText());
+		output.writeUTF(gav.groupArtifact.artifactId.toText());
+		output.writeUTF(gav.version.toText());
+	}
+
+	/**
+	 * Returns when the index was saved.
+	 */
+	private static final long readEntries(final DataInputStream input, final Map<File, Entry> entries) throws IOException
+	{
+		if (input.readInt() != FORMAT)
+		{
+			return Long.MAX_VALUE;
+		}
+		final long savedAt = input.readLong();
+		final int entryCount = input.readInt();
+		for (int i = 0; i < entryCount; i++)
+		{
+			final File pomFile = new File(input.readUTF());
+			final long size = input.readLong();
+			final long lastModified = input.readLong();
+			final byte[] hash = new byte[input.readInt()];
+			input.readFully(hash);
+			final GroupIdSource groupIdSource = GroupIdSource.valueOf(input.readUTF());
+			final VersionSource versionSource = VersionSource.valueOf(input.readUTF());
+			final Gav gav = readGav(input);
+			final Type type = Type.valueOf(input.readUTF());
+			final Optional<Gav> parentGav = input.readBoolean()
+					? Optional.of(readGav(input))
+					: Optional.<Gav> absent();
+			final String parentRelativePath = input.readUTF();
+			final ImmutableList.Builder<String> modulesBuilder = ImmutableList.builder();
+			final int moduleCount = input.readInt();
+			for (int j = 0; j < moduleCount; j++)
+			{
+				modulesBuilder.add(input.readUTF());
+			}
+			final ImmutableList.Builder<Property> propertiesBuilder = ImmutableList.builder();
+			final int propertyCount = input.readInt();
+			for (int j = 0; j < propertyCount; j++)
+			{
+				propertiesBuilder.add(Property.BUILDER.build(Key.BUILDER.build(input.readUTF()), input.readUTF()));
+			}
+			final ImmutableList.Builder<Dependency> dependenciesBuilder = ImmutableList.builder();
+			final int dependencyCount = input.readInt();
+			for (int j = 0; j < dependencyCount; j++)
+			{
+				dependenciesBuilder.add(Dependency.BUILDER.build(readGav(input)));
+			}
+			final ParsedPom parsedPom = new ParsedPom(
+					pomFile,
+					groupIdSource,
+					versionSource,
+					gav,
+					type,
+					parentGav,
+					parentRelativePath,
+					modulesBuilder.build(),
+					propertiesBuilder.build(),
+					dependenciesBuilder.build());
+			entries.put(pomFile, new Entry(size, lastModified, HashCode.fromBytes(hash), parsedPom));
+		}
+		return savedAt;
+	}
+
+	private static final Gav readGav(final DataInputStream input) throws IOException
+	{
+		return Gav.BUILDER.build(
+				GroupArtifact.BUILDER.build(
+						GroupId.BUILDER.build(input.readUTF()),
+						ArtifactId.BUILDER.build(input.readUTF())),
+				Version.BUILDER.build(input.readUTF()));
+	}
+}
@@ -0,0 +1,254 @@
+/*
+ * Copyright (C) 2016 H.C. Wijbenga
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.hilcode.versionator;
+
+import java.io.File;
+import java.util.Queue;
+import org.w3c.dom.Document;
+import com.google.common.base.Optional;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Supplier;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Queues;
+
+/**
+ * A {@code PomParser} that can be shared by any number of threads. The JAXP objects behind a {@code DefaultPomParser}
+ * are not thread-safe, so every call borrows a parser from a pool (creating one when none is idle) and returns it
+ * afterwards; the pool never holds more parsers than there were concurrent callers.
+ */
+public final class PooledPomParser
+	implements
+		PomParser
+{
+	private final Supplier<PomParser> pomParserSupplier;
+
+	private final Queue<PomParser> idlePomParsers = Queues.newConcurrentLinkedQueue();
+
+	public PooledPomParser(final Supplier<PomParser> pomParserSupplier)
+	{
+		Preconditions.checkNotNull(pomParserSupplier, "Missing 'pomParserSupplier'.");
+		this.pomParserSupplier = pomParserSupplier;
+	}
+
+	private PomParser borrow()
+	{
+		final PomParser pomParser = this.idlePomParsers.poll();
+		return pomParser != null
+				? pomParser
+				: this.pomParserSupplier.get();
+	}
+
+	private void release(final PomParser pomParser)
+	{
+		this.idlePomParsers.offer(pomParser);
+	}
+
+	@Override
+	public Document toDocument(final File pomFile)
+	{
+		final PomParser pomParser = borrow();
+		try
+		{
+			return pomParser.toDocument(pomFile);
+		}
+		finally
+		{
+			release(pomParser);
+		}
+	}
+
+	@Override
+	public String findParentGroupId(final Document pom)
+	{
+		final PomParser pomParser = borrow();
+		try
+		{
+			return pomParser.findParentGroupId(pom);
+		}
+		finally
+		{
+			release(pomParser);
+		}
+	}
+
+	@Override
+	public String findParentArtifactId(final Document pom)
+	{
+		final PomParser pomParser = borrow();
+		try
+		{
+			return pomParser.findParentArtifactId(pom);
+		}
+		finally
+		{
+			release(pomParser);
+		}
+	}
+
+	@Override
+	public String findParentVersion(final Document pom)
+	{
+		final PomParser pomParser = borrow();
+		try
+		{
+			return pomParser.findParentVersion(pom);
+		}
+		finally
+		{
+			release(pomParser);
+		}
+	}
+
+	@Override
+	public String findParentRelativePath(final Document pom)
+	{
+		final PomParser pomParser = borrow();
+		try
+		{
+			return pomParser.findParentRelativePath(pom);
+		}
+		finally
+		{
+			release(pomParser);
+		}
+	}
+
+	@Override
+	public Tuple._2<GroupIdSource, String> findGroupId(final Document pom)
+	{
+		final PomParser pomParser = borrow();
+		try
+		{
+			return pomParser.findGroupId(pom);
+		}
+		finally
+		{
+			release(pomParser);
+		}
+	}
+
+	@Override
+	public String findArtifactId(final Document pom)
+	{
+		final PomParser pomParser = borrow();
+		try
+		{
+			return pomParser.findArtifactId(pom);
+		}
+		finally
+		{
+			release(pomParser);
+		}
+	}
+
+	@Override
+	public Tuple._2<VersionSource, String> findVersion(final Document pom)
+	{
+		final PomParser pomParser = borrow();
+		try
+		{
+			return pomParser.findVersion(pom);
+		}
+		finally
+		{
+			release(pomParser);
+		}
+	}
+
+	@Override
+	public Optional<Gav> findParentGav(final Document pom)
+	{
+		final PomParser pomParser = borrow();
+		try
+		{
+			return pomParser.findParentGav(pom);
+		}
+		finally
+		{
+			release(pomParser);
+		}
+	}
+
+	@Override
+	public ImmutableList<String> findModules(final Document pom)
+	{
+		final PomParser pomParser = borrow();
+		try
+		{
+			return pomParser.findModules(pom);
+		}
+		finally
+		{
+			release(pomParser);
+		}
+	}
+
+	@Override
+	public ImmutableList<Property> findProperties(final Document pom)
+	{
+		final PomParser pomParser = borrow();
+		try
+		{
+			return pomParser.findProperties(pom);
+		}
+		finally
+		{
+			release(pomParser);
+		}
+	}
+
+	@Override
+	public Tuple._3<GroupIdSource, VersionSource, Gav> findGav(final Document pom)
+	{
+		final PomParser pomParser = borrow();
+		try
+		{
+			return pomParser.findGav(pom);
+		}
+		finally
+		{
+			release(pomParser);
+		}
+	}
+
+	@Override
+	public Type findType(final Document pom)
+	{
+		final PomParser pomParser = borrow();
+		try
+		{
+			return pomParser.findType(pom);
+		}
+		finally
+		{
+			release(pomParser);
+		}
+	}
+
+	@Override
+	public ImmutableList<Dependency> findDependencies(final Document pom)
+	{
+		final PomParser pomParser = borrow();
+		try
+		{
+			return pomParser.findDependencies(pom);
+		}
+		finally
+		{
+			release(pomParser);
+		}
+	}
+}
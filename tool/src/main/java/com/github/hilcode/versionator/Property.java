@@ -28,12 +28,15 @@ public final class Property
 
 	public final String value;
 
+	private final int hashCode;
+
 	private Property(final Key key, final String value)
 	{
 		Preconditions.checkNotNull(key, "Missing 'key'.");
 		Preconditions.checkNotNull(value, "Missing 'value'.");
 		this.key = key;
 		this.value = value;
+		this.hashCode = computeHashCode();
 	}
 
 	public Property apply(final String newValue)
@@ -44,6 +47,11 @@ public final class Property
 
 	@Override
 	public int hashCode()
+	{
+		return this.hashCode;
+	}
+
+	private int computeHashCode()
 	{
 		final int prime = 31;
 		int result = 1;
@@ -64,12 +72,16 @@ public final class Property
 			return false;
 		}
 		final Property other = (Property) object;
-		return compareTo(other) == 0;
+		return this.hashCode == other.hashCode && compareTo(other) == 0;
 	}
 
 	@Override
 	public int compareTo(final Property other)
 	{
+		if (this == other)
+		{
+			return 0;
+		}
 		return ComparisonChain
 				.start()
 				.compare(this.key, other.key)
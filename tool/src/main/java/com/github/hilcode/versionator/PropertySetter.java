@@ -16,9 +16,9 @@
 package com.github.hilcode.versionator;
 
 import java.io.File;
-import java.io.FileOutputStream;
+import java.util.Map;
+import com.google.common.collect.Maps;
 import com.ximpleware.AutoPilot;
-import com.ximpleware.VTDGen;
 import com.ximpleware.VTDNav;
 import com.ximpleware.XMLModifier;
 
@@ -72,44 +72,27 @@ public final class PropertySetter
 		}
 	}
 
-	private static final void output(final XMLModifier xmlModifier, final File newPomFile)
+	public void updateProperty(final File pomFile, final Property property)
 	{
-		try
-		{
-			final FileOutputStream outputStream = new FileOutputStream(newPomFile);
-			xmlModifier.output(outputStream);
-		}
-		catch (final Exception e)
-		{
-			throw new IllegalStateException(e.getMessage(), e);
-		}
+		final VTDNav vtdNavigator = PomDocuments.parse(pomFile);
+		final Map<Integer, String> tokenUpdates = Maps.newLinkedHashMap();
+		updateProperty(vtdNavigator, property, tokenUpdates);
+		PomDocuments.write(vtdNavigator, tokenUpdates, pomFile);
 	}
 
-	public void updateProperty(final File pomFile, final Property property)
+	public void updateProperty(final VTDNav vtdNavigator, final Property property, final Map<Integer, String> tokenUpdates)
 	{
 		final String xpath = String.format("/project/properties/%s/text()", property.key.toText());
-		final VTDGen vtdGenerator = new VTDGen();
-		vtdGenerator.enableIgnoredWhiteSpace(true);
-		if (vtdGenerator.parseFile(pomFile.getPath(), true))
+		final AutoPilot autoPilot = new AutoPilot(vtdNavigator);
+		selectXpath(autoPilot, xpath);
+		while (true)
 		{
-			final VTDNav vtdNavigator = vtdGenerator.getNav();
-			final XMLModifier xmlModifier = newXmlModifier(vtdNavigator);
-			final AutoPilot autoPilot = new AutoPilot(vtdNavigator);
-			selectXpath(autoPilot, xpath);
-			while (true)
+			final int index = evalXpath(autoPilot);
+			if (index == -1)
 			{
-				final int index = evalXpath(autoPilot);
-				if (index == -1)
-				{
-					break;
-				}
-				updateToken(xmlModifier, index, property.value);
+				break;
 			}
-			output(xmlModifier, pomFile);
-		}
-		else
-		{
-			throw new IllegalStateException(String.format("Unable to parse '%s'.", pomFile.getPath()));
+			tokenUpdates.put(Integer.valueOf(index), property.value);
 		}
 	}
 }
@@ -0,0 +1,108 @@
+/*
+ * Copyright (C) 2016 H.C. Wijbenga
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.hilcode.versionator;
+
+import static com.github.hilcode.versionator.PomFinderUtils.toCanonical;
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Reads everything {@code DefaultPomParser} extracts from a POM in a single streaming (StAX) pass, without building
+ * a DOM and without evaluating any XPath expressions.
+ */
+public final class StaxPomReader
+	implements
+		PomReader
+{
+	private static final String REPORT_CDATA_EVENT = "http://java.sun.com/xml/stream/properties/report-cdata-event";
+
+	private final ThreadLocal<XMLInputFactory> xmlInputFactories = new ThreadLocal<XMLInputFactory>()
+	{
+		@Override
+		protected XMLInputFactory initialValue()
+		{
+			final XMLInputFactory xmlInputFactory = XMLInputFactory.newInstance();
+			xmlInputFactory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.FALSE);
+			xmlInputFactory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.FALSE);
+			if (xmlInputFactory.isPropertySupported(REPORT_CDATA_EVENT))
+			{
+				xmlInputFactory.setProperty(REPORT_CDATA_EVENT, Boolean.TRUE);
+			}
+			return xmlInputFactory;
+		}
+	};
+
+	@Override
+	public ParsedPom read(final File pomFile)
+	{
+		try (final InputStream inputStream = new BufferedInputStream(new FileInputStream(pomFile)))
+		{
+			final XMLStreamReader xmlStreamReader = this.xmlInputFactories.get().createXMLStreamReader(inputStream);
+			try
+			{
+				final PomEventHandler pomEventHandler = new PomEventHandler();
+				handle(xmlStreamReader, pomEventHandler);
+				return pomEventHandler.toParsedPom(toCanonical(pomFile.getAbsoluteFile()));
+			}
+			finally
+			{
+				xmlStreamReader.close();
+			}
+		}
+		catch (final IOException | XMLStreamException e)
+		{
+			throw new IllegalStateException(e.getMessage(), e);
+		}
+	}
+
+	private static final void handle(final XMLStreamReader xmlStreamReader, final PomEventHandler pomEventHandler) throws XMLStreamException
+	{
+		while (xmlStreamReader.hasNext())
+		{
+			switch (xmlStreamReader.next())
+			{
+				case XMLStreamConstants.START_ELEMENT:
+					pomEventHandler.startElement(xmlStreamReader.getLocalName());
+					break;
+				case XMLStreamConstants.END_ELEMENT:
+					pomEventHandler.endElement();
+					break;
+				case XMLStreamConstants.CHARACTERS:
+				case XMLStreamConstants.SPACE:
+					pomEventHandler.node(xmlStreamReader.getText(), true, true);
+					break;
+				case XMLStreamConstants.CDATA:
+					pomEventHandler.node(xmlStreamReader.getText(), false, true);
+					break;
+				case XMLStreamConstants.COMMENT:
+					pomEventHandler.node(xmlStreamReader.getText(), false, false);
+					break;
+				case XMLStreamConstants.PROCESSING_INSTRUCTION:
+					pomEventHandler.node(xmlStreamReader.getPIData(), false, false);
+					break;
+				default:
+					break;
+			}
+		}
+	}
+}
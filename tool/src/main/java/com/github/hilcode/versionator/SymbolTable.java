@@ -0,0 +1,67 @@
+/*
+ * Copyright (C) 2016 H.C. Wijbenga
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.hilcode.versionator;
+
+import java.util.List;
+import java.util.Map;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+/**
+ * Gives every {@code GroupArtifact} added to it a dense {@code int} ID (in the order they were first added) so it can
+ * index arrays and {@code BitSet}s. Not thread-safe while being added to; once filled it may be shared.
+ */
+public final class SymbolTable
+{
+	public static final int NOT_FOUND = -1;
+
+	private final Map<GroupArtifact, Integer> groupArtifactIds = Maps.newHashMap();
+
+	private final List<GroupArtifact> groupArtifacts = Lists.newArrayList();
+
+	public int add(final GroupArtifact groupArtifact)
+	{
+		Preconditions.checkNotNull(groupArtifact, "Missing 'groupArtifact'.");
+		final Integer id = this.groupArtifactIds.get(groupArtifact);
+		if (id != null)
+		{
+			return id.intValue();
+		}
+		final int id_ = this.groupArtifacts.size();
+		this.groupArtifactIds.put(groupArtifact, Integer.valueOf(id_));
+		this.groupArtifacts.add(groupArtifact);
+		return id_;
+	}
+
+	public int find(final GroupArtifact groupArtifact)
+	{
+		final Integer id = this.groupArtifactIds.get(groupArtifact);
+		return id == null
+				? NOT_FOUND
+				: id.intValue();
+	}
+
+	public GroupArtifact groupArtifact(final int id)
+	{
+		return this.groupArtifacts.get(id);
+	}
+
+	public int groupArtifactCount()
+	{
+		return this.groupArtifacts.size();
+	}
+}
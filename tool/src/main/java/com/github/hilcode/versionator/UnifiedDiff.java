@@ -0,0 +1,301 @@
+/*
+ * Copyright (C) 2016 H.C. Wijbenga
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.hilcode.versionator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+import com.google.common.primitives.Ints;
+
+/**
+ * Writes a unified diff of a file straight from the byte ranges being replaced, without rendering the new file or
+ * running a general-purpose diff. Lines are split on {@code '\n'}, so the content must be in an ASCII-compatible
+ * encoding; it is copied to the output as is.
+ */
+public final class UnifiedDiff
+{
+	public static final int CONTEXT = 3;
+
+	public static final class Edit
+	{
+		public static final Comparator<Edit> BY_OFFSET = new Comparator<Edit>()
+		{
+			@Override
+			public int compare(final Edit edit1, final Edit edit2)
+			{
+				return Ints.compare(edit1.offset, edit2.offset);
+			}
+		};
+
+		public final int offset;
+
+		public final int length;
+
+		public final byte[] replacement;
+
+		public Edit(final int offset, final int length, final byte[] replacement)
+		{
+			Preconditions.checkArgument(offset >= 0, "Invalid 'offset': " + offset + "; must be nonnegative.");
+			Preconditions.checkArgument(length >= 0, "Invalid 'length': " + length + "; must be nonnegative.");
+			Preconditions.checkNotNull(replacement, "Missing 'replacement'.");
+			this.offset = offset;
+			this.length = length;
+			this.replacement = replacement;
+		}
+
+		public boolean changes(final byte[] content)
+		{
+			if (this.length != this.replacement.length)
+			{
+				return true;
+			}
+			for (int i = 0; i < this.length; i++)
+			{
+				if (content[this.offset + i] != this.replacement[i])
+				{
+					return true;
+				}
+			}
+			return false;
+		}
+	}
+
+	/**
+	 * A run of whole lines, {@code [firstLine, lastLine]}, of the original content, and what they become.
+	 */
+	private static final class Change
+	{
+		public final int firstLine;
+
+		public final int lastLine;
+
+		public final List<byte[]> newLines;
+
+		public Change(final int firstLine, final int lastLine, final List<byte[]> newLines)
+		{
+			this.firstLine = firstLine;
+			this.lastLine = lastLine;
+			this.newLines = newLines;
+		}
+	}
+
+	private final byte[] content;
+
+	private final int contentLength;
+
+	private final int[] lineStarts;
+
+	public UnifiedDiff(final byte[] content, final int contentLength)
+	{
+		Preconditions.checkNotNull(content, "Missing 'content'.");
+		this.content = content;
+		this.contentLength = contentLength;
+		this.lineStarts = findLineStarts(content, contentLength);
+	}
+
+	private static final int[] findLineStarts(final byte[] content, final int contentLength)
+	{
+		final List<Integer> lineStarts = Lists.newArrayList();
+		lineStarts.add(Integer.valueOf(0));
+		for (int i = 0; i < contentLength; i++)
+		{
+			if (content[i] == '\n' && i + 1 < contentLength)
+			{
+				lineStarts.add(Integer.valueOf(i + 1));
+			}
+		}
+		return Ints.toArray(lineStarts);
+	}
+
+	private int lineCount()
+	{
+		return this.lineStarts.length;
+	}
+
+	private int lineStart(final int line)
+	{
+		return this.lineStarts[line];
+	}
+
+	private int lineEnd(final int line)
+	{
+		return line + 1 < this.lineStarts.length
+				? this.lineStarts[line + 1]
+				: this.contentLength;
+	}
+
+	private int findLine(final int offset)
+	{
+		final int index = Arrays.binarySearch(this.lineStarts, offset);
+		return index >= 0 ? index : -index - 2;
+	}
+
+	/**
+	 * Writes nothing when the edits change nothing.
+	 */
+	public void write(final OutputStream output, final String path, final List<Edit> edits) throws IOException
+	{
+		final List<Change> changes = toChanges(edits);
+		if (changes.isEmpty())
+		{
+			return;
+		}
+		output.write(String.format("--- a/%s\n+++ b/%s\n", path, path).getBytes(StandardCharsets.UTF_8));
+		int lineDelta = 0;
+		int changeIndex = 0;
+		while (changeIndex < changes.size())
+		{
+			int lastChangeIndex = changeIndex;
+			while (lastChangeIndex + 1 < changes.size() &&
+					changes.get(lastChangeIndex + 1).firstLine - changes.get(lastChangeIndex).lastLine - 1 <= 2 * CONTEXT)
+			{
+				lastChangeIndex++;
+			}
+			final int firstLine = Math.max(0, changes.get(changeIndex).firstLine - CONTEXT);
+			final int lastLine = Math.min(lineCount() - 1, changes.get(lastChangeIndex).lastLine + CONTEXT);
+			int oldLineCount = lastLine - firstLine + 1;
+			int newLineCount = oldLineCount;
+			for (int i = changeIndex; i <= lastChangeIndex; i++)
+			{
+				final Change change = changes.get(i);
+				newLineCount += change.newLines.size() - (change.lastLine - change.firstLine + 1);
+			}
+			output.write(String.format(
+					"@@ -%d,%d +%d,%d @@\n",
+					Integer.valueOf(firstLine + 1),
+					Integer.valueOf(oldLineCount),
+					Integer.valueOf(firstLine + 1 + lineDelta),
+					Integer.valueOf(newLineCount)).getBytes(StandardCharsets.UTF_8));
+			int line = firstLine;
+			for (int i = changeIndex; i <= lastChangeIndex; i++)
+			{
+				final Change change = changes.get(i);
+				for (; line < change.firstLine; line++)
+				{
+					writeLine(output, ' ', this.content, lineStart(line), lineEnd(line));
+				}
+				for (; line <= change.lastLine; line++)
+				{
+					writeLine(output, '-', this.content, lineStart(line), lineEnd(line));
+				}
+				for (final byte[] newLine : change.newLines)
+				{
+					writeLine(output, '+', newLine, 0, newLine.length);
+				}
+			}
+			for (; line <= lastLine; line++)
+			{
+				writeLine(output, ' ', this.content, lineStart(line), lineEnd(line));
+			}
+			lineDelta += newLineCount - oldLineCount;
+			changeIndex = lastChangeIndex + 1;
+		}
+	}
+
+	private List<Change> toChanges(final List<Edit> edits)
+	{
+		final List<Edit> sortedEdits = Lists.newArrayList();
+		for (final Edit edit : edits)
+		{
+			if (edit.changes(this.content))
+			{
+				sortedEdits.add(edit);
+			}
+		}
+		Collections.sort(sortedEdits, Edit.BY_OFFSET);
+		final List<Change> changes = Lists.newArrayList();
+		int editIndex = 0;
+		while (editIndex < sortedEdits.size())
+		{
+			final int firstLine = findLine(sortedEdits.get(editIndex).offset);
+			int lastLine = findLine(Math.max(sortedEdits.get(editIndex).offset, lastByte(sortedEdits.get(editIndex))));
+			int lastEditIndex = editIndex;
+			while (lastEditIndex + 1 < sortedEdits.size() && findLine(sortedEdits.get(lastEditIndex + 1).offset) <= lastLine)
+			{
+				lastEditIndex++;
+				lastLine = Math.max(lastLine, findLine(lastByte(sortedEdits.get(lastEditIndex))));
+			}
+			final byte[] newContent = apply(
+					sortedEdits.subList(editIndex, lastEditIndex + 1),
+					lineStart(firstLine),
+					lineEnd(lastLine));
+			changes.add(new Change(firstLine, lastLine, splitLines(newContent)));
+			editIndex = lastEditIndex + 1;
+		}
+		return changes;
+	}
+
+	private static final int lastByte(final Edit edit)
+	{
+		return edit.offset + Math.max(edit.length, 1) - 1;
+	}
+
+	private byte[] apply(final List<Edit> edits, final int start, final int end)
+	{
+		final ByteArrayOutputStream newContent = new ByteArrayOutputStream(end - start + 16);
+		int offset = start;
+		for (final Edit edit : edits)
+		{
+			newContent.write(this.content, offset, edit.offset - offset);
+			newContent.write(edit.replacement, 0, edit.replacement.length);
+			offset = edit.offset + edit.length;
+		}
+		newContent.write(this.content, offset, end - offset);
+		return newContent.toByteArray();
+	}
+
+	private static final List<byte[]> splitLines(final byte[] content)
+	{
+		final List<byte[]> lines = Lists.newArrayList();
+		int start = 0;
+		for (int i = 0; i < content.length; i++)
+		{
+			if (content[i] == '\n')
+			{
+				lines.add(Arrays.copyOfRange(content, start, i + 1));
+				start = i + 1;
+			}
+		}
+		if (start < content.length)
+		{
+			lines.add(Arrays.copyOfRange(content, start, content.length));
+		}
+		return lines;
+	}
+
+	private static final void writeLine(
+			final OutputStream output,
+			final char prefix,
+			final byte[] line,
+			final int start,
+			final int end) throws IOException
+	{
+		output.write(prefix);
+		output.write(line, start, end - start);
+		if (end == start || line[end - 1] != '\n')
+		{
+			output.write('\n');
+			output.write("\\ No newline at end of file\n".getBytes(StandardCharsets.UTF_8));
+		}
+	}
+}
@@ -16,9 +16,13 @@
 package com.github.hilcode.versionator;
 
 import java.io.File;
-import java.io.FileOutputStream;
+import java.util.List;
+import java.util.Map;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.ximpleware.AutoPilot;
-import com.ximpleware.VTDGen;
+import com.ximpleware.NavException;
 import com.ximpleware.VTDNav;
 import com.ximpleware.XMLModifier;
 
@@ -72,47 +76,160 @@ public final class VersionSetter
 		}
 	}
 
-	private static final void output(final XMLModifier xmlModifier, final File newPomFile)
+	private static final class Element
 	{
-		try
+		public final Element parent;
+
+		public final String name;
+
+		public final int depth;
+
+		public final StringBuilder text;
+
+		public final List<Integer> versionTextIndexes = Lists.newArrayList();
+
+		public String groupId = "";
+
+		public String artifactId = "";
+
+		public String parentGroupId = "";
+
+		public Element(final Element parent, final String name, final int depth)
 		{
-			final FileOutputStream outputStream = new FileOutputStream(newPomFile);
-			xmlModifier.output(outputStream);
+			this.parent = parent;
+			this.name = name;
+			this.depth = depth;
+			this.text = isCaptured(parent, name) ? new StringBuilder() : null;
 		}
-		catch (final Exception e)
+
+		private static final boolean isCaptured(final Element parent, final String name)
 		{
-			throw new IllegalStateException(e.getMessage(), e);
+			return parent != null && (parent.text != null || name.equals("groupId") || name.equals("artifactId"));
+		}
+
+		public boolean isParentOfProject()
+		{
+			return this.name.equals("parent") && this.parent != null && this.parent.parent == null;
 		}
 	}
 
 	public void updateAll(final File pomFile, final Gav gav)
 	{
-		final String xpath = String.format(
-				"//*[normalize-space(normalize-space(child::groupId='%s')) and normalize-space(normalize-space(child::artifactId))='%s']/version/text()",
-				gav.groupArtifact.groupId.toText(),
-				gav.groupArtifact.artifactId.toText());
-		final VTDGen vtdGenerator = new VTDGen();
-		vtdGenerator.enableIgnoredWhiteSpace(true);
-		if (vtdGenerator.parseFile(pomFile.getPath(), true))
-		{
-			final VTDNav vtdNavigator = vtdGenerator.getNav();
-			final XMLModifier xmlModifier = newXmlModifier(vtdNavigator);
-			final AutoPilot autoPilot = new AutoPilot(vtdNavigator);
-			selectXpath(autoPilot, xpath);
-			while (true)
+		final VTDNav vtdNavigator = PomDocuments.parse(pomFile);
+		final Map<Integer, String> tokenUpdates = Maps.newLinkedHashMap();
+		updateAll(vtdNavigator, gav, tokenUpdates);
+		PomDocuments.write(vtdNavigator, tokenUpdates, pomFile);
+	}
+
+	public void updateAll(final VTDNav vtdNavigator, final Gav gav, final Map<Integer, String> tokenUpdates)
+	{
+		updateAll(vtdNavigator, ImmutableMap.of(gav.groupArtifact, gav.version), tokenUpdates);
+	}
+
+	/**
+	 * Records the updates instead of applying them, keyed by token index, so that all updates of a POM can be applied
+	 * in a single pass. A later update of the same token replaces an earlier one.
+	 * <p>
+	 * Walks the POM's tokens once: every element with a {@code groupId} and {@code artifactId} child (the project
+	 * itself falling back to its parent's {@code groupId}) whose pair is one of the given ones, has the text of its
+	 * {@code version} children set to that pair's version. As in {@code PomParserUtils.findDependency}, the last
+	 * {@code groupId} and {@code artifactId} child win and their text is trimmed.
+	 */
+	public void updateAll(
+			final VTDNav vtdNavigator,
+			final Map<GroupArtifact, Version> versions,
+			final Map<Integer, String> tokenUpdates)
+	{
+		final Map<String, String> versionsByGroupArtifact = Maps.newHashMap();
+		for (final Map.Entry<GroupArtifact, Version> entry : versions.entrySet())
+		{
+			versionsByGroupArtifact.put(entry.getKey().toText(), entry.getValue().toText());
+		}
+		try
+		{
+			Element element = null;
+			final int tokenCount = vtdNavigator.getTokenCount();
+			for (int index = 0; index < tokenCount; index++)
 			{
-				final int index = evalXpath(autoPilot);
-				if (index == -1)
+				final int tokenType = vtdNavigator.getTokenType(index);
+				final int depth = vtdNavigator.getTokenDepth(index);
+				if (tokenType == VTDNav.TOKEN_STARTING_TAG)
 				{
-					break;
+					for (; element != null && element.depth >= depth; element = element.parent)
+					{
+						endElement(element, versionsByGroupArtifact, tokenUpdates);
+					}
+					element = new Element(element, vtdNavigator.toString(index), depth);
 				}
-				updateToken(xmlModifier, index, gav.version.toText());
+				else if (tokenType == VTDNav.TOKEN_CHARACTER_DATA || tokenType == VTDNav.TOKEN_CDATA_VAL)
+				{
+					for (; element != null && element.depth > depth; element = element.parent)
+					{
+						endElement(element, versionsByGroupArtifact, tokenUpdates);
+					}
+					if (element != null)
+					{
+						if (element.text != null)
+						{
+							element.text.append(vtdNavigator.toString(index));
+						}
+						if (element.name.equals("version") && element.parent != null)
+						{
+							element.parent.versionTextIndexes.add(Integer.valueOf(index));
+						}
+					}
+				}
+			}
+			for (; element != null; element = element.parent)
+			{
+				endElement(element, versionsByGroupArtifact, tokenUpdates);
+			}
+		}
+		catch (final NavException e)
+		{
+			throw new IllegalStateException(e.getMessage(), e);
+		}
+	}
+
+	private static final void endElement(
+			final Element element,
+			final Map<String, String> versionsByGroupArtifact,
+			final Map<Integer, String> tokenUpdates)
+	{
+		final Element parent = element.parent;
+		if (element.text != null && parent != null)
+		{
+			if (parent.text != null)
+			{
+				parent.text.append(element.text);
+			}
+			if (element.name.equals("groupId"))
+			{
+				parent.groupId = element.text.toString().trim();
+			}
+			else if (element.name.equals("artifactId"))
+			{
+				parent.artifactId = element.text.toString().trim();
 			}
-			output(xmlModifier, pomFile);
 		}
-		else
+		if (element.isParentOfProject())
 		{
-			throw new IllegalStateException(String.format("Unable to parse '%s'.", pomFile.getPath()));
+			parent.parentGroupId = element.groupId;
+		}
+		if (element.versionTextIndexes.isEmpty() || element.artifactId.isEmpty())
+		{
+			return;
+		}
+		final String groupId = element.groupId.isEmpty() && parent == null
+				? element.parentGroupId
+				: element.groupId;
+		final String version = versionsByGroupArtifact.get(groupId + ":" + element.artifactId);
+		if (version != null)
+		{
+			for (final Integer index : element.versionTextIndexes)
+			{
+				tokenUpdates.put(index, version);
+			}
 		}
 	}
 }
@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2016 H.C. Wijbenga
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.hilcode.versionator;
+
+import static com.github.hilcode.versionator.PomFinderUtils.toCanonical;
+import java.io.File;
+import com.google.common.base.Preconditions;
+import com.ximpleware.NavException;
+import com.ximpleware.VTDNav;
+
+/**
+ * Reads POMs by indexing them once with VTD-XML, the same engine {@code VersionSetter} and {@code PropertySetter} use,
+ * and walking that index's tokens. The index is kept in {@code PomDocuments} so it can be reused when writing.
+ */
+public final class VtdPomReader
+	implements
+		PomReader
+{
+	private final PomDocuments pomDocuments;
+
+	public VtdPomReader(final PomDocuments pomDocuments)
+	{
+		Preconditions.checkNotNull(pomDocuments, "Missing 'pomDocuments'.");
+		this.pomDocuments = pomDocuments;
+	}
+
+	@Override
+	public ParsedPom read(final File pomFile)
+	{
+		final File canonicalPomFile = toCanonical(pomFile.getAbsoluteFile());
+		final VTDNav vtdNavigator = this.pomDocuments.get(canonicalPomFile);
+		final PomEventHandler pomEventHandler = new PomEventHandler();
+		try
+		{
+			handle(vtdNavigator, pomEventHandler);
+		}
+		catch (final NavException e)
+		{
+			throw new IllegalStateException(e.getMessage(), e);
+		}
+		return pomEventHandler.toParsedPom(canonicalPomFile);
+	}
+
+	/**
+	 * VTD records no end tags: an element ends where the next token of the same or a lower depth starts. Text,
+	 * comment and processing instruction tokens have the depth of the element that contains them.
+	 */
+	private static final void handle(final VTDNav vtdNavigator, final PomEventHandler pomEventHandler)
+			throws NavException
+	{
+		int openElementCount = 0;
+		final int tokenCount = vtdNavigator.getTokenCount();
+		for (int index = 0; index < tokenCount; index++)
+		{
+			final int tokenType = vtdNavigator.getTokenType(index);
+			final int depth = vtdNavigator.getTokenDepth(index);
+			switch (tokenType)
+			{
+				case VTDNav.TOKEN_STARTING_TAG:
+					for (; openElementCount > depth; openElementCount--)
+					{
+						pomEventHandler.endElement();
+					}
+					pomEventHandler.startElement(vtdNavigator.toString(index));
+					openElementCount++;
+					break;
+				case VTDNav.TOKEN_CHARACTER_DATA:
+				case VTDNav.TOKEN_CDATA_VAL:
+				case VTDNav.TOKEN_COMMENT:
+				case VTDNav.TOKEN_PI_NAME:
+					if (depth < 0)
+					{
+						break;
+					}
+					for (; openElementCount > depth + 1; openElementCount--)
+					{
+						pomEventHandler.endElement();
+					}
+					if (tokenType == VTDNav.TOKEN_PI_NAME)
+					{
+						final boolean hasValue = index + 1 < tokenCount &&
+								vtdNavigator.getTokenType(index + 1) == VTDNav.TOKEN_PI_VAL;
+						pomEventHandler.node(hasValue ? vtdNavigator.toRawString(index + 1) : "", false, false);
+					}
+					else
+					{
+						pomEventHandler.node(
+								vtdNavigator.toString(index),
+								tokenType == VTDNav.TOKEN_CHARACTER_DATA,
+								tokenType != VTDNav.TOKEN_COMMENT);
+					}
+					break;
+				default:
+					break;
+			}
+		}
+		for (; openElementCount > 0; openElementCount--)
+		{
+			pomEventHandler.endElement();
+		}
+	}
+}
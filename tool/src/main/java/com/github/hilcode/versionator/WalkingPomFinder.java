@@ -0,0 +1,169 @@
+/*
+ * Copyright (C) 2016 H.C. Wijbenga
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.hilcode.versionator;
+
+import static com.github.hilcode.versionator.PomFinderUtils.findMissingParents;
+import static com.github.hilcode.versionator.PomFinderUtils.toCanonical;
+import static com.github.hilcode.versionator.PomFinderUtils.toPoms;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+/**
+ * Finds every {@code pom.xml} below the root directory, whether or not it is reachable through {@code <modules>}.
+ * Directories are walked and POMs are read concurrently on a {@code ForkJoinPool}; parents that live elsewhere (as
+ * given by their {@code <relativePath>}) are read afterwards and everything is linked by GroupArtifact. Two POMs with
+ * the same GroupArtifact (such as a test fixture copying a real POM) are an error; prune the directory of one of them.
+ */
+public final class WalkingPomFinder
+	implements
+		PomFinder
+{
+	public static final ImmutableList<String> DEFAULT_PRUNE_GLOBS = ImmutableList.of("target", ".git", "node_modules");
+
+	private final PomReader pomReader;
+
+	private final int parallelism;
+
+	private final ImmutableList<String> pruneGlobs;
+
+	public WalkingPomFinder(final PomReader pomReader, final int parallelism, final ImmutableList<String> pruneGlobs)
+	{
+		Preconditions.checkNotNull(pomReader, "Missing 'pomReader'.");
+		Preconditions.checkArgument(parallelism > 0, "Invalid 'parallelism': %s; must be positive.", parallelism);
+		Preconditions.checkNotNull(pruneGlobs, "Missing 'pruneGlobs'.");
+		this.pomReader = pomReader;
+		this.parallelism = parallelism;
+		this.pruneGlobs = pruneGlobs;
+	}
+
+	@Override
+	public ImmutableList<Pom> findAllPoms(final File rootDir)
+	{
+		final Path rootPath = toCanonical(rootDir.getAbsoluteFile()).toPath();
+		final ImmutableList.Builder<PathMatcher> pruneMatchersBuilder = ImmutableList.builder();
+		for (final String pruneGlob : this.pruneGlobs)
+		{
+			pruneMatchersBuilder.add(FileSystems.getDefault().getPathMatcher("glob:" + pruneGlob));
+		}
+		final Map<File, ParsedPom> parsedPoms = Maps.newConcurrentMap();
+		final ForkJoinPool forkJoinPool = new ForkJoinPool(this.parallelism);
+		try
+		{
+			forkJoinPool.invoke(new WalkTask(rootPath, pruneMatchersBuilder.build(), parsedPoms, rootPath));
+		}
+		finally
+		{
+			forkJoinPool.shutdown();
+		}
+		findMissingParents(this.pomReader, parsedPoms);
+		return toPoms(parsedPoms);
+	}
+
+	private final class WalkTask
+		extends
+			RecursiveAction
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final Path rootPath;
+
+		private final ImmutableList<PathMatcher> pruneMatchers;
+
+		private final Map<File, ParsedPom> parsedPoms;
+
+		private final Path dir;
+
+		public WalkTask(
+				final Path rootPath,
+				final ImmutableList<PathMatcher> pruneMatchers,
+				final Map<File, ParsedPom> parsedPoms,
+				final Path dir)
+		{
+			this.rootPath = rootPath;
+			this.pruneMatchers = pruneMatchers;
+			this.parsedPoms = parsedPoms;
+			this.dir = dir;
+		}
+
+		@Override
+		protected void compute()
+		{
+			final List<WalkTask> tasks = Lists.newArrayList();
+			Path pomPath = null;
+			try (final DirectoryStream<Path> entries = Files.newDirectoryStream(this.dir))
+			{
+				for (final Path entry : entries)
+				{
+					if (Files.isDirectory(entry, LinkOption.NOFOLLOW_LINKS))
+					{
+						if (!isPruned(entry))
+						{
+							tasks.add(new WalkTask(this.rootPath, this.pruneMatchers, this.parsedPoms, entry));
+						}
+					}
+					else if (entry.getFileName().toString().equals("pom.xml"))
+					{
+						pomPath = entry;
+					}
+				}
+			}
+			catch (final IOException e)
+			{
+				throw new IllegalStateException(e.getMessage(), e);
+			}
+			for (final WalkTask task : tasks)
+			{
+				task.fork();
+			}
+			if (pomPath != null)
+			{
+				final File pomFile = toCanonical(pomPath.toFile());
+				this.parsedPoms.put(pomFile, WalkingPomFinder.this.pomReader.read(pomFile));
+			}
+			for (final WalkTask task : tasks)
+			{
+				task.join();
+			}
+		}
+
+		private boolean isPruned(final Path dir_)
+		{
+			final Path relativeDir = this.rootPath.relativize(dir_);
+			for (final PathMatcher pruneMatcher : this.pruneMatchers)
+			{
+				if (pruneMatcher.matches(dir_.getFileName()) || pruneMatcher.matches(relativeDir))
+				{
+					return true;
+				}
+			}
+			return false;
+		}
+	}
+}
@@ -0,0 +1,387 @@
+/*
+ * Copyright (C) 2016 H.C. Wijbenga
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.hilcode.versionator;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.util.List;
+import java.util.Set;
+import com.google.common.base.Joiner;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+/**
+ * Replaces a set of files all-or-nothing.
+ * <p>
+ * {@link #stage(File, byte[])} writes (and fsyncs) the new content to a sibling of the file, with the file's POSIX
+ * permissions, and keeps a hard link to the current content as a backup; each staged file is first added to a list next
+ * to the journal file. {@link #commit()} then records every staged file in the journal file and renames each new file
+ * over its original. If that fails halfway, the files already replaced are restored from their backups; if the process
+ * dies halfway, {@link #recover(File)} does the same on the next run.
+ * <p>
+ * Deleting the journal file is what makes a commit (or a rollback) final, so the backups are only discarded after it.
+ * Backups without a journal file are left over from a process that died while staging or after that point; recovery
+ * removes them, along with the new files, as listed next to the journal file.
+ */
+public final class WriteJournal
+{
+	public static final String JOURNAL_PATH = ".versionator/journal";
+
+	private static final String NEW_SUFFIX = ".versionator-new";
+
+	private static final String OLD_SUFFIX = ".versionator-old";
+
+	private static final String STAGED_SUFFIX = ".staged";
+
+	private final File journalFile;
+
+	private final File stagedListFile;
+
+	private final Set<File> stagedFiles = Sets.newTreeSet();
+
+	public WriteJournal(final File journalFile)
+	{
+		Preconditions.checkNotNull(journalFile, "Missing 'journalFile'.");
+		this.journalFile = journalFile;
+		this.stagedListFile = toStagedListFile(journalFile);
+	}
+
+	private static final File toStagedListFile(final File journalFile)
+	{
+		return new File(journalFile.getParentFile(), journalFile.getName() + STAGED_SUFFIX);
+	}
+
+	public static final File toJournalFile(final File rootDir)
+	{
+		return new File(rootDir, JOURNAL_PATH);
+	}
+
+	public static final File toNewFile(final File file)
+	{
+		return new File(file.getParentFile(), "." + file.getName() + NEW_SUFFIX);
+	}
+
+	public static final File toOldFile(final File file)
+	{
+		return new File(file.getParentFile(), "." + file.getName() + OLD_SUFFIX);
+	}
+
+	/**
+	 * Safe to call from several threads at once, as long as each file is staged only once.
+	 */
+	public void stage(final File file, final byte[] content)
+	{
+		final File newFile = toNewFile(file);
+		final File oldFile = toOldFile(file);
+		try
+		{
+			addToStagedList(file);
+			writeAndSync(newFile, content);
+			copyPosixAttributes(file, newFile);
+			Files.deleteIfExists(oldFile.toPath());
+			try
+			{
+				Files.createLink(oldFile.toPath(), file.toPath());
+			}
+			catch (final UnsupportedOperationException | IOException e)
+			{
+				Files.copy(file.toPath(), oldFile.toPath(), StandardCopyOption.COPY_ATTRIBUTES);
+			}
+		}
+		catch (final IOException e)
+		{
+			newFile.delete();
+			throw new IllegalStateException(e.getMessage(), e);
+		}
+		synchronized (this.stagedFiles)
+		{
+			this.stagedFiles.add(file);
+		}
+	}
+
+	public void commit()
+	{
+		final ImmutableList<File> files;
+		synchronized (this.stagedFiles)
+		{
+			files = ImmutableList.copyOf(this.stagedFiles);
+			this.stagedFiles.clear();
+		}
+		if (files.isEmpty())
+		{
+			return;
+		}
+		try
+		{
+			this.journalFile.getParentFile().mkdirs();
+			writeAndSync(this.journalFile, toLines(files));
+			syncDir(this.journalFile.getParentFile());
+		}
+		catch (final IOException e)
+		{
+			this.journalFile.delete();
+			discard(files);
+			this.stagedListFile.delete();
+			throw new IllegalStateException(e.getMessage(), e);
+		}
+		final List<File> replacedFiles = Lists.newArrayList();
+		try
+		{
+			for (final File file : files)
+			{
+				Files.move(toNewFile(file).toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+				replacedFiles.add(file);
+			}
+		}
+		catch (final IOException e)
+		{
+			restore(replacedFiles);
+			syncDirs(replacedFiles);
+			deleteJournal(this.journalFile);
+			discard(files);
+			this.stagedListFile.delete();
+			throw new IllegalStateException(
+					String.format(
+							"Unable to replace '%s'; all %d files were left unchanged: %s",
+							files.get(replacedFiles.size()),
+							Integer.valueOf(files.size()),
+							e.getMessage()),
+					e);
+		}
+		syncDirs(files);
+		deleteJournal(this.journalFile);
+		discard(files);
+		this.stagedListFile.delete();
+	}
+
+	/**
+	 * Drops everything staged so far; no original file has been touched yet. The journal's directory goes too, if
+	 * nothing else lives in it.
+	 */
+	public void abort()
+	{
+		synchronized (this.stagedFiles)
+		{
+			discard(this.stagedFiles);
+			this.stagedFiles.clear();
+			this.stagedListFile.delete();
+			this.stagedListFile.getParentFile().delete();
+		}
+	}
+
+	/**
+	 * Rolls back a commit that was interrupted, returning the number of files that were restored, and removes what an
+	 * interrupted stage left behind.
+	 */
+	public static final int recover(final File journalFile)
+	{
+		final File stagedListFile = toStagedListFile(journalFile);
+		if (!journalFile.isFile() && !stagedListFile.isFile())
+		{
+			return 0;
+		}
+		try
+		{
+			int restoredFileCount = 0;
+			if (journalFile.isFile())
+			{
+				final List<File> files = readLines(journalFile);
+				restoredFileCount = restore(files);
+				syncDirs(files);
+				deleteJournal(journalFile);
+				discard(files);
+			}
+			if (stagedListFile.isFile())
+			{
+				discard(readLines(stagedListFile));
+			}
+			Files.deleteIfExists(stagedListFile.toPath());
+			return restoredFileCount;
+		}
+		catch (final IOException e)
+		{
+			throw new IllegalStateException(e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Makes the state of the files final: from here on, their backups are no longer needed.
+	 */
+	private static final void deleteJournal(final File journalFile)
+	{
+		try
+		{
+			Files.deleteIfExists(journalFile.toPath());
+		}
+		catch (final IOException e)
+		{
+			throw new IllegalStateException(e.getMessage(), e);
+		}
+		syncDir(journalFile.getParentFile());
+	}
+
+	private void addToStagedList(final File file) throws IOException
+	{
+		synchronized (this.stagedListFile)
+		{
+			this.stagedListFile.getParentFile().mkdirs();
+			try (final FileChannel channel = FileChannel.open(
+					this.stagedListFile.toPath(),
+					StandardOpenOption.CREATE,
+					StandardOpenOption.APPEND))
+			{
+				final ByteBuffer buffer = ByteBuffer.wrap(toLines(ImmutableList.of(file)));
+				while (buffer.hasRemaining())
+				{
+					channel.write(buffer);
+				}
+				channel.force(true);
+			}
+		}
+	}
+
+	private static final byte[] toLines(final List<File> files)
+	{
+		return (Joiner.on('\n').join(files) + "\n").getBytes(StandardCharsets.UTF_8);
+	}
+
+	private static final List<File> readLines(final File file) throws IOException
+	{
+		final List<File> files = Lists.newArrayList();
+		for (final String line : Files.readAllLines(file.toPath(), StandardCharsets.UTF_8))
+		{
+			if (!line.isEmpty())
+			{
+				files.add(new File(line));
+			}
+		}
+		return files;
+	}
+
+	/**
+	 * Gives the new file the permissions (and, if allowed, the group) of the file it replaces, as it is created with
+	 * default ones. Does nothing on file systems without POSIX attributes.
+	 */
+	private static final void copyPosixAttributes(final File file, final File newFile) throws IOException
+	{
+		final PosixFileAttributeView newFileView =
+				Files.getFileAttributeView(newFile.toPath(), PosixFileAttributeView.class);
+		if (newFileView == null)
+		{
+			return;
+		}
+		final PosixFileAttributes attributes = Files.readAttributes(file.toPath(), PosixFileAttributes.class);
+		newFileView.setPermissions(attributes.permissions());
+		if (!attributes.group().equals(newFileView.readAttributes().group()))
+		{
+			try
+			{
+				newFileView.setGroup(attributes.group());
+			}
+			catch (final IOException e)
+			{
+				// Only groups the user belongs to can be set; the permissions are what matters.
+			}
+		}
+	}
+
+	private static final void syncDirs(final List<File> files)
+	{
+		final Set<File> dirs = Sets.newHashSet();
+		for (final File file : files)
+		{
+			if (dirs.add(file.getAbsoluteFile().getParentFile()))
+			{
+				syncDir(file.getAbsoluteFile().getParentFile());
+			}
+		}
+	}
+
+	/**
+	 * Makes the renames in the given directory durable.
+	 */
+	private static final void syncDir(final File dir)
+	{
+		try (final FileChannel channel = FileChannel.open(dir.toPath(), StandardOpenOption.READ))
+		{
+			channel.force(true);
+		}
+		catch (final IOException e)
+		{
+			// Not every platform can open a directory (Windows cannot); there renames are as durable as they get.
+		}
+	}
+
+	private static final int restore(final List<File> files)
+	{
+		int restoredFileCount = 0;
+		for (final File file : files)
+		{
+			final File oldFile = toOldFile(file);
+			if (oldFile.isFile())
+			{
+				try
+				{
+					Files.move(oldFile.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+					restoredFileCount++;
+				}
+				catch (final IOException e)
+				{
+					throw new IllegalStateException(
+							String.format("Unable to restore '%s' from '%s': %s", file, oldFile, e.getMessage()),
+							e);
+				}
+			}
+		}
+		return restoredFileCount;
+	}
+
+	private static final void discard(final Iterable<File> files)
+	{
+		for (final File file : files)
+		{
+			toNewFile(file).delete();
+			toOldFile(file).delete();
+		}
+	}
+
+	private static final void writeAndSync(final File file, final byte[] content) throws IOException
+	{
+		try (final FileChannel channel = FileChannel.open(
+				file.toPath(),
+				StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING,
+				StandardOpenOption.WRITE))
+		{
+			final ByteBuffer buffer = ByteBuffer.wrap(content);
+			while (buffer.hasRemaining())
+			{
+				channel.write(buffer);
+			}
+			channel.force(true);
+		}
+	}
+}
@@ -21,6 +21,9 @@ import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import org.junit.Test;
 import com.github.hilcode.versionator.Globs.Glob;
+import com.github.hilcode.versionator.Globs.GlobUnion;
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableList;
 
 /**
  * The unit tests for {@code Globs}.
@@ -166,6 +169,63 @@ public final class GlobsTest
 		assertFalse(Globs.create("*?*?*").match("a"));
 	}
 
+	@Test
+	public void non_ascii_characters_should_match_literally_and_by_wildcard()
+	{
+		assertTrue(Globs.create("caf\u00e9").match("caf\u00e9"));
+		assertFalse(Globs.create("caf\u00e9").match("cafe"));
+		assertTrue(Globs.create("caf?").match("caf\u00e9"));
+		assertTrue(Globs.create("*\u00e9*").match("r\u00e9sum\u00e9"));
+	}
+
+	@Test
+	public void patterns_too_long_for_bit_parallel_matching_should_match_the_same()
+	{
+		final String prefix = Strings.repeat("a", Glob.MAX_BIT_PARALLEL_LENGTH);
+		assertTrue(Globs.create(prefix + "b").match(prefix + "b"));
+		assertFalse(Globs.create(prefix + "b").match(prefix + "c"));
+		assertTrue(Globs.create(prefix + "*").match(prefix));
+		assertTrue(Globs.create(prefix + "*b?").match(prefix + "xbxbbc"));
+		assertFalse(Globs.create(prefix + "*b?").match(prefix + "xbxb"));
+		assertTrue(Globs.create("*a*" + prefix).match("ba" + prefix + "a"));
+		assertFalse(Globs.create("*a*" + prefix).match(prefix));
+		assertTrue(Globs.create("*b" + prefix).match("b" + prefix));
+	}
+
+	@Test
+	public void a_glob_union_should_find_the_last_glob_that_matches()
+	{
+		final ImmutableList<Glob> globs = ImmutableList.of(
+				new Glob("a*"),
+				new Glob("*b"),
+				new Glob("?"),
+				new Glob("caf\u00e9*"),
+				new Glob(""),
+				new Glob("a?c*"));
+		assertTrue(GlobUnion.fits(globs));
+		final GlobUnion globUnion = new GlobUnion(globs);
+		for (final String text : ImmutableList.of("", "a", "b", "ab", "abc", "abcb", "xyz", "caf\u00e9s", "\u00e9"))
+		{
+			int lastMatch = -1;
+			for (int i = 0; i < globs.size(); i++)
+			{
+				if (globs.get(i).match(text))
+				{
+					lastMatch = i;
+				}
+			}
+			assertEquals(text, lastMatch, globUnion.lastMatch(text));
+		}
+	}
+
+	@Test
+	public void globs_longer_than_a_long_should_not_fit_in_a_glob_union()
+	{
+		final Glob glob = new Glob(Strings.repeat("a", Long.SIZE / 2 - 1));
+		assertTrue(GlobUnion.fits(ImmutableList.of(glob, glob)));
+		assertFalse(GlobUnion.fits(ImmutableList.of(glob, glob, new Glob(""))));
+	}
+
 	@Test
 	public void placate_jacoco()
 	{
@@ -0,0 +1,80 @@
+/*
+ * Copyright (C) 2016 H.C. Wijbenga
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.hilcode.versionator;
+
+import static org.junit.Assert.assertEquals;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import org.junit.Before;
+import org.junit.Test;
+import com.google.common.io.Files;
+
+/**
+ * The unit tests for {@code IndexedPomReader}.
+ */
+public final class IndexedPomReaderTest
+{
+	private File pomFile;
+
+	private File indexFile;
+
+	@Before
+	public void setUp() throws IOException
+	{
+		final File dir = Files.createTempDir();
+		this.pomFile = new File(dir, "pom.xml");
+		this.indexFile = PomIndex.toIndexFile(dir);
+	}
+
+	private void writePom(final String version, final long lastModified) throws IOException
+	{
+		Files.write(
+				"<project><groupId>g</groupId><artifactId>a</artifactId><version>" + version + "</version></project>",
+				this.pomFile,
+				StandardCharsets.UTF_8);
+		this.pomFile.setLastModified(lastModified);
+	}
+
+	private String readVersion()
+	{
+		final PomIndex pomIndex = PomIndex.load(this.indexFile);
+		final ParsedPom parsedPom = new IndexedPomReader(pomIndex, new DefaultPomReader(new DefaultPomParser()))
+				.read(this.pomFile);
+		pomIndex.save();
+		return parsedPom.gav.version.toText();
+	}
+
+	@Test
+	public void a_same_size_edit_within_the_same_second_as_the_index_should_be_noticed() throws IOException
+	{
+		final long now = System.currentTimeMillis() / 1000 * 1000;
+		writePom("1.2", now);
+		assertEquals("1.2", readVersion());
+		writePom("1.3", now);
+		assertEquals("1.3", readVersion());
+	}
+
+	@Test
+	public void an_entry_clearly_older_than_the_index_should_be_trusted() throws IOException
+	{
+		final long anHourAgo = System.currentTimeMillis() - 3600 * 1000;
+		writePom("1.2", anHourAgo);
+		assertEquals("1.2", readVersion());
+		writePom("1.3", anHourAgo);
+		assertEquals("1.2", readVersion());
+	}
+}
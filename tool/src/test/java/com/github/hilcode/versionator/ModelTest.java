@@ -17,12 +17,14 @@ package com.github.hilcode.versionator;
 
 import static org.junit.Assert.assertEquals;
 import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import org.junit.Before;
 import org.junit.Ignore;
 import org.junit.Test;
 import com.google.common.collect.ImmutableList;
+import com.google.common.io.Files;
 
-@Ignore
 public class ModelTest
 {
 	private File baseDir;
@@ -37,6 +39,7 @@ public class ModelTest
 		this.pomFinder = new DefaultPomFinder(pomParser);
 	}
 
+	@Ignore
 	@Test
 	public void test0001()
 	{
@@ -45,6 +48,7 @@ public class ModelTest
 		assertEquals("com.github.hilcode:versionator-it:1.0-SNAPSHOT", model.poms.get(0).gav.toText());
 	}
 
+	@Ignore
 	@Test
 	public void test0002()
 	{
@@ -61,6 +65,7 @@ public class ModelTest
 		assertEquals("1.0.1-SNAPSHOT", pom.gav.version.toText());
 	}
 
+	@Ignore
 	@Test
 	public void test0003()
 	{
@@ -82,6 +87,7 @@ public class ModelTest
 		assertEquals("1.2.4-SNAPSHOT", pom.gav.version.toText());
 	}
 
+	@Ignore
 	@Test
 	public void test0004()
 	{
@@ -101,6 +107,7 @@ public class ModelTest
 		}
 	}
 
+	@Ignore
 	@Test
 	public void test0005()
 	{
@@ -112,6 +119,7 @@ public class ModelTest
 		assertEquals("0.0.1-SNAPSHOT", pom.gav.version.toText());
 	}
 
+	@Ignore
 	@Test
 	public void test0006()
 	{
@@ -132,6 +140,27 @@ public class ModelTest
 		assertEquals("versionator-it", pom.gav.groupArtifact.artifactId);
 		assertEquals("1.2.4-SNAPSHOT", pom.gav.version.toText());
 	}
+
+	@Test
+	public void a_gav_already_at_its_version_should_not_undo_the_gavs_before_it() throws IOException
+	{
+		final File dir = Files.createTempDir();
+		Files.write(
+				"<project><modelVersion>4.0.0</modelVersion>" +
+						"<groupId>its</groupId><artifactId>root</artifactId><version>1.0-SNAPSHOT</version>" +
+						"<dependencies><dependency>" +
+						"<groupId>GROUP</groupId><artifactId>ARTIFACT</artifactId><version>2.0</version>" +
+						"</dependency></dependencies>" +
+						"</project>",
+				new File(dir, "pom.xml"),
+				StandardCharsets.UTF_8);
+		final Model model = Model.BUILDER.build(this.pomFinder.findAllPoms(dir));
+		final Model result = model.apply(
+				ImmutableList.of(Gav.BUILDER.build("GROUP:ARTIFACT:3.0"), Gav.BUILDER.build("its:root:1.0-SNAPSHOT")));
+		final Pom pom = result.poms.get(0);
+		assertEquals("its:root:1.0-SNAPSHOT", pom.gav.toText());
+		assertEquals("GROUP:ARTIFACT:3.0", pom.dependencies.get(0).gav.toText());
+	}
 	//	@Test
 	//	public void test1001()
 	//	{
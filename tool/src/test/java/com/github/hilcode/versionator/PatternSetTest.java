@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2016 H.C. Wijbenga
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.hilcode.versionator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * The unit tests for {@code PatternSet}.
+ */
+public final class PatternSetTest
+{
+	private static final Gav JUNIT = Gav.BUILDER.build("junit:junit:4.12");
+
+	private static final Gav GUAVA = Gav.BUILDER.build("com.google.guava:guava:18.0-SNAPSHOT");
+
+	@Test
+	public void later_patterns_should_override_earlier_ones()
+	{
+		final PatternSet patternSet = new PatternSet(ImmutableList.of("*:*:*", "!junit:*", "junit:junit:4.1?"));
+		assertTrue(patternSet.includes(GUAVA));
+		assertTrue(patternSet.includes(JUNIT));
+		assertFalse(patternSet.includes(Gav.BUILDER.build("junit:junit:4.8")));
+	}
+
+	@Test
+	public void the_default_should_depend_on_the_first_pattern()
+	{
+		assertFalse(new PatternSet(ImmutableList.of("junit:*")).includes(GUAVA));
+		assertTrue(new PatternSet(ImmutableList.of("!junit:*")).includes(GUAVA));
+		assertFalse(new PatternSet(ImmutableList.of("!junit:*")).includes(JUNIT));
+	}
+
+	@Test
+	public void globs_should_span_the_components_of_a_gav()
+	{
+		assertTrue(new PatternSet(ImmutableList.of("com.google.*-SNAPSHOT")).includes(GUAVA));
+		assertTrue(new PatternSet(ImmutableList.of("*a:g?ava:*")).includes(GUAVA));
+		assertFalse(new PatternSet(ImmutableList.of("*:guava")).includes(GUAVA));
+	}
+
+	@Test
+	public void decisions_should_be_memoized_per_gav()
+	{
+		final PatternSet patternSet = new PatternSet(ImmutableList.of("*:*:*", "!junit:*"));
+		for (int i = 0; i < 3; i++)
+		{
+			assertFalse(patternSet.includes(JUNIT));
+			assertTrue(patternSet.includes(GUAVA));
+			assertFalse(patternSet.includes(Gav.BUILDER.build("junit:junit:4.12")));
+		}
+		assertEquals(2, patternSet.decisionCount());
+	}
+
+	@Test
+	public void a_gav_text_should_read_like_the_text_of_its_gav()
+	{
+		final PatternSet.GavText text = new PatternSet.GavText(GUAVA);
+		assertEquals(GUAVA.toText(), text.toString());
+		assertEquals(GUAVA.toText().length(), text.length());
+		for (int i = 0; i < text.length(); i++)
+		{
+			assertEquals(GUAVA.toText().charAt(i), text.charAt(i));
+		}
+		assertEquals("guava", text.subSequence(17, 22).toString());
+	}
+
+	@Test
+	public void patterns_too_long_to_match_at_once_should_decide_the_same()
+	{
+		final String longGavs = "!" + Strings.repeat("?", Long.SIZE) + "*";
+		final PatternSet patternSet = new PatternSet(ImmutableList.of("*:*:*", "!junit:*", longGavs, "*:guava:*"));
+		assertTrue(patternSet.includes(GUAVA));
+		assertFalse(patternSet.includes(JUNIT));
+		assertFalse(patternSet.includes(Gav.BUILDER.build(Strings.repeat("x", Long.SIZE) + ":x:1.0")));
+		assertTrue(patternSet.includes(Gav.BUILDER.build("org.slf4j:slf4j-api:1.7")));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void empty_patterns_should_be_rejected()
+	{
+		new PatternSet(ImmutableList.<String> of());
+	}
+}
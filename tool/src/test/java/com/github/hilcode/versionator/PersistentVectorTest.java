@@ -0,0 +1,66 @@
+/*
+ * Copyright (C) 2016 H.C. Wijbenga
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.hilcode.versionator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import java.util.List;
+import org.junit.Test;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+
+/**
+ * The unit tests for {@code PersistentVector}.
+ */
+public final class PersistentVectorTest
+{
+	private static final List<Integer> range(final int size)
+	{
+		final List<Integer> elements = Lists.newArrayList();
+		for (int i = 0; i < size; i++)
+		{
+			elements.add(Integer.valueOf(i));
+		}
+		return elements;
+	}
+
+	@Test
+	public void a_copy_should_equal_the_list_it_was_copied_from()
+	{
+		for (final int size : new int[] { 0, 1, 31, 32, 33, 1024, 1025, 40000 })
+		{
+			final List<Integer> elements = range(size);
+			assertEquals(elements, PersistentVector.copyOf(elements));
+			assertEquals(ImmutableList.copyOf(elements), PersistentVector.copyOf(elements));
+		}
+	}
+
+	@Test
+	public void with_should_leave_the_original_vector_unchanged()
+	{
+		final List<Integer> elements = range(40000);
+		final PersistentVector<Integer> vector = PersistentVector.copyOf(elements);
+		PersistentVector<Integer> vector_ = vector;
+		for (int i = 0; i < elements.size(); i += 997)
+		{
+			vector_ = vector_.with(i, Integer.valueOf(-i));
+			elements.set(i, Integer.valueOf(-i));
+		}
+		assertEquals(elements, vector_);
+		assertEquals(range(40000), vector);
+		assertSame(vector, vector.with(5, vector.get(5)));
+	}
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright (C) 2016 H.C. Wijbenga
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.hilcode.versionator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import org.junit.Test;
+
+/**
+ * The unit tests for {@code SymbolTable}.
+ */
+public final class SymbolTableTest
+{
+	@Test
+	public void ids_should_be_dense_and_in_the_order_of_first_addition()
+	{
+		final SymbolTable symbols = new SymbolTable();
+		final GroupArtifact a = GroupArtifact.BUILDER.build("g:a");
+		final GroupArtifact b = GroupArtifact.BUILDER.build("g:b");
+		final GroupArtifact c = GroupArtifact.BUILDER.build("h:a");
+		assertEquals(0, symbols.add(a));
+		assertEquals(1, symbols.add(b));
+		assertEquals(0, symbols.add(a));
+		assertEquals(2, symbols.add(c));
+		assertEquals(3, symbols.groupArtifactCount());
+		assertSame(b, symbols.groupArtifact(1));
+		assertEquals(2, symbols.find(c));
+	}
+
+	@Test
+	public void unknown_group_artifacts_should_not_be_found()
+	{
+		final SymbolTable symbols = new SymbolTable();
+		symbols.add(GroupArtifact.BUILDER.build("g:a"));
+		assertEquals(SymbolTable.NOT_FOUND, symbols.find(GroupArtifact.BUILDER.build("g:b")));
+	}
+}
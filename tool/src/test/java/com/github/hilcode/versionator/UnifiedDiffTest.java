@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2016 H.C. Wijbenga
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.hilcode.versionator;
+
+import static org.junit.Assert.assertEquals;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import org.junit.Test;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * The unit tests for {@code UnifiedDiff}.
+ */
+public final class UnifiedDiffTest
+{
+	private static final String diff(final String content, final UnifiedDiff.Edit... edits) throws IOException
+	{
+		final byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+		final ByteArrayOutputStream output = new ByteArrayOutputStream();
+		new UnifiedDiff(bytes, bytes.length).write(output, "pom.xml", ImmutableList.copyOf(edits));
+		return new String(output.toByteArray(), StandardCharsets.UTF_8);
+	}
+
+	private static final UnifiedDiff.Edit edit(final String content, final String text, final String replacement)
+	{
+		return new UnifiedDiff.Edit(
+				content.indexOf(text),
+				text.length(),
+				replacement.getBytes(StandardCharsets.UTF_8));
+	}
+
+	@Test
+	public void a_file_without_changes_should_have_an_empty_diff() throws IOException
+	{
+		final String content = "a\nb\n";
+		assertEquals("", diff(content, edit(content, "b", "b")));
+	}
+
+	@Test
+	public void edits_should_share_a_hunk_only_when_their_context_overlaps() throws IOException
+	{
+		final String content = "1\n2\n3\n4\n5\n6\n7\n8\n9\n10\n11\n12\n13\n14\n15\n16\n17\n18\n";
+		assertEquals(
+				"--- a/pom.xml\n+++ b/pom.xml\n" +
+						"@@ -1,4 +1,4 @@\n-1\n+one\n 2\n 3\n 4\n" +
+						"@@ -6,13 +6,13 @@\n 6\n 7\n 8\n-9\n+nine\n 10\n 11\n 12\n 13\n 14\n-15\n+fifteen\n 16\n 17\n 18\n",
+				diff(
+						content,
+						edit(content, "15", "fifteen"),
+						edit(content, "1\n", "one\n"),
+						edit(content, "9", "nine")));
+	}
+
+	@Test
+	public void a_missing_newline_at_the_end_of_the_file_should_be_marked() throws IOException
+	{
+		final String content = "a\nb";
+		assertEquals(
+				"--- a/pom.xml\n+++ b/pom.xml\n@@ -1,2 +1,2 @@\n a\n-b\n\\ No newline at end of file\n+c\n\\ No newline at end of file\n",
+				diff(content, edit(content, "b", "c")));
+	}
+}
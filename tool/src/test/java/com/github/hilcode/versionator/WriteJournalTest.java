@@ -0,0 +1,173 @@
+/*
+ * Copyright (C) 2016 H.C. Wijbenga
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.hilcode.versionator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Set;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.io.Files;
+
+/**
+ * The unit tests for {@code WriteJournal}.
+ */
+public final class WriteJournalTest
+{
+	private File dir;
+
+	private File a;
+
+	private File b;
+
+	private File journalFile;
+
+	@Before
+	public void setUp() throws IOException
+	{
+		this.dir = Files.createTempDir();
+		this.a = new File(this.dir, "a.xml");
+		this.b = new File(this.dir, "b.xml");
+		this.journalFile = WriteJournal.toJournalFile(this.dir);
+		write(this.a, "a1");
+		write(this.b, "b1");
+	}
+
+	private static final void write(final File file, final String text) throws IOException
+	{
+		Files.write(text, file, StandardCharsets.UTF_8);
+	}
+
+	private static final String read(final File file) throws IOException
+	{
+		return Files.toString(file, StandardCharsets.UTF_8);
+	}
+
+	private void assertOnlyFilesLeft(final String... names)
+	{
+		assertOnlyFilesLeftIn(this.dir, names);
+	}
+
+	private static final void assertOnlyFilesLeftIn(final File dir, final String... names)
+	{
+		assertEquals(ImmutableSortedSet.copyOf(names), ImmutableSortedSet.copyOf(dir.list()));
+	}
+
+	@Test
+	public void a_commit_should_replace_all_staged_files() throws IOException
+	{
+		final WriteJournal writeJournal = new WriteJournal(this.journalFile);
+		writeJournal.stage(this.a, "a2".getBytes(StandardCharsets.UTF_8));
+		writeJournal.stage(this.b, "b2".getBytes(StandardCharsets.UTF_8));
+		assertEquals("a1", read(this.a));
+		writeJournal.commit();
+		assertEquals("a2", read(this.a));
+		assertEquals("b2", read(this.b));
+		assertFalse(this.journalFile.exists());
+		assertOnlyFilesLeft(".versionator", "a.xml", "b.xml");
+	}
+
+	@Test
+	public void an_abort_should_leave_all_files_unchanged() throws IOException
+	{
+		final WriteJournal writeJournal = new WriteJournal(this.journalFile);
+		writeJournal.stage(this.a, "a2".getBytes(StandardCharsets.UTF_8));
+		writeJournal.stage(this.b, "b2".getBytes(StandardCharsets.UTF_8));
+		writeJournal.abort();
+		assertEquals("a1", read(this.a));
+		assertEquals("b1", read(this.b));
+		assertOnlyFilesLeft("a.xml", "b.xml");
+	}
+
+	@Test
+	public void an_interrupted_commit_should_be_rolled_back() throws IOException
+	{
+		final WriteJournal writeJournal = new WriteJournal(this.journalFile);
+		writeJournal.stage(this.a, "a2".getBytes(StandardCharsets.UTF_8));
+		writeJournal.stage(this.b, "b2".getBytes(StandardCharsets.UTF_8));
+		// What commit() leaves behind when the process dies after replacing the first file.
+		this.journalFile.getParentFile().mkdirs();
+		write(this.journalFile, this.a.getPath() + "\n" + this.b.getPath() + "\n");
+		java.nio.file.Files.move(
+				WriteJournal.toNewFile(this.a).toPath(),
+				this.a.toPath(),
+				StandardCopyOption.ATOMIC_MOVE);
+		assertEquals("a2", read(this.a));
+		assertEquals(2, WriteJournal.recover(this.journalFile));
+		assertEquals("a1", read(this.a));
+		assertEquals("b1", read(this.b));
+		assertOnlyFilesLeft(".versionator", "a.xml", "b.xml");
+		assertEquals(0, WriteJournal.recover(this.journalFile));
+	}
+
+	@Test
+	public void an_interrupted_stage_should_be_cleaned_up() throws IOException
+	{
+		final WriteJournal writeJournal = new WriteJournal(this.journalFile);
+		writeJournal.stage(this.a, "a2".getBytes(StandardCharsets.UTF_8));
+		writeJournal.stage(this.b, "b2".getBytes(StandardCharsets.UTF_8));
+		// The process dies before commit() writes the journal.
+		assertEquals(0, WriteJournal.recover(this.journalFile));
+		assertEquals("a1", read(this.a));
+		assertEquals("b1", read(this.b));
+		assertOnlyFilesLeft(".versionator", "a.xml", "b.xml");
+		assertOnlyFilesLeftIn(this.journalFile.getParentFile());
+	}
+
+	@Test
+	public void a_commit_interrupted_after_deleting_the_journal_should_stand() throws IOException
+	{
+		final WriteJournal writeJournal = new WriteJournal(this.journalFile);
+		writeJournal.stage(this.a, "a2".getBytes(StandardCharsets.UTF_8));
+		writeJournal.stage(this.b, "b2".getBytes(StandardCharsets.UTF_8));
+		// What commit() leaves behind when the process dies after deleting the journal, before discarding the backups.
+		for (final File file : new File[] { this.a, this.b })
+		{
+			java.nio.file.Files.move(
+					WriteJournal.toNewFile(file).toPath(),
+					file.toPath(),
+					StandardCopyOption.ATOMIC_MOVE);
+		}
+		assertFalse(this.journalFile.exists());
+		assertEquals(0, WriteJournal.recover(this.journalFile));
+		assertEquals("a2", read(this.a));
+		assertEquals("b2", read(this.b));
+		assertOnlyFilesLeft(".versionator", "a.xml", "b.xml");
+		assertOnlyFilesLeftIn(this.journalFile.getParentFile());
+	}
+
+	@Test
+	public void a_commit_should_keep_the_permissions_of_the_replaced_files() throws IOException
+	{
+		Assume.assumeTrue(FileSystems.getDefault().supportedFileAttributeViews().contains("posix"));
+		final Set<PosixFilePermission> permissions = PosixFilePermissions.fromString("rwxr-x---");
+		java.nio.file.Files.setPosixFilePermissions(this.a.toPath(), permissions);
+		final WriteJournal writeJournal = new WriteJournal(this.journalFile);
+		writeJournal.stage(this.a, "a2".getBytes(StandardCharsets.UTF_8));
+		writeJournal.commit();
+		assertEquals("a2", read(this.a));
+		assertEquals(permissions, java.nio.file.Files.getPosixFilePermissions(this.a.toPath()));
+	}
+}